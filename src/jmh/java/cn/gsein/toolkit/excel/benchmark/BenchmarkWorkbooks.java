@@ -0,0 +1,83 @@
+package cn.gsein.toolkit.excel.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 基准测试用的工作簿
+ * <p>
+ * 由{@link WorkbookGenerator}按固定的随机数种子生成，相同参数得到相同的工作簿。每个单元格都有值，合并区域之间互不重叠。
+ * 也可以直接运行，把一组工作簿写入目录，供性能测试和回归测试使用，不需要私有数据：
+ * <pre>
+ * java -cp target/benchmarks.jar cn.gsein.toolkit.excel.benchmark.BenchmarkWorkbooks [目录]
+ * </pre>
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+final class BenchmarkWorkbooks {
+    private BenchmarkWorkbooks() {
+    }
+
+    private static final long SEED = 20200523L;
+
+    /**
+     * @param format       xls或xlsx
+     * @param rows         行数
+     * @param columns      列数
+     * @param styles       不同样式的个数
+     * @param mergeDensity 合并区域左上角单元格占全部单元格的比例
+     * @param pictures     图片个数
+     * @param cjkTextRatio 文本单元格中较长的中文换行文本所占的比例
+     * @param formulaRatio 数值单元格中公式所占的比例
+     * @return 工作簿文件的内容
+     */
+    static byte[] create(String format, int rows, int columns, int styles, double mergeDensity, int pictures,
+                         double cjkTextRatio, double formulaRatio) {
+        try {
+            return generator(format, rows, columns, styles, mergeDensity, pictures, cjkTextRatio, formulaRatio).generate();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 把基准测试使用的各组工作簿写入目录，不指定目录时写入新建的临时目录
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = args.length > 0
+                ? Files.createDirectories(Paths.get(args[0]))
+                : Files.createTempDirectory("excel-workbooks");
+        for (String format : new String[]{"xlsx", "xls"}) {
+            for (int rows : new int[]{200, 2000}) {
+                for (int pictures : new int[]{0, 20}) {
+                    String name = String.format("rows%d-pictures%d.%s", rows, pictures, format);
+                    Path file = directory.resolve(name);
+                    try (OutputStream out = Files.newOutputStream(file)) {
+                        generator(format, rows, 20, 16, 0.02, pictures, 0.1, 0.1).write(out);
+                    }
+                    System.out.println(file);
+                }
+            }
+        }
+    }
+
+    private static WorkbookGenerator generator(String format, int rows, int columns, int styles, double mergeDensity,
+                                               int pictures, double cjkTextRatio, double formulaRatio) {
+        return WorkbookGenerator.builder()
+                .format(WorkbookGenerator.Format.valueOf(format.toUpperCase()))
+                .seed(SEED)
+                .rows(rows)
+                .columns(columns)
+                .styles(styles)
+                .mergeDensity(mergeDensity)
+                .pictures(pictures)
+                .cjkTextRatio(cjkTextRatio)
+                .formulaRatio(formulaRatio)
+                .build();
+    }
+}
@@ -0,0 +1,163 @@
+package cn.gsein.toolkit.excel.benchmark;
+
+import cn.gsein.toolkit.excel.pdf.Configuration;
+import cn.gsein.toolkit.excel.pdf.PdfboxConverter;
+import cn.gsein.toolkit.excel.pdf.util.ExcelUtil;
+import cn.gsein.toolkit.excel.util.GridLayout;
+import cn.gsein.toolkit.excel.util.MergedRegionIndex;
+import cn.gsein.toolkit.excel.util.RenderStyles;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PdfboxConverter各阶段的基准测试：解析工作簿、计算版面、绘制页面、保存文档
+ * <p>
+ * 版面阶段与PdfboxConverter中的计算相同（列宽、行高、分页、合并区域索引、样式），
+ * 绘制阶段包含版面计算，两者之差即为绘制本身的耗时。默认字体font/STXIHEI.TTF需要在classpath中。
+ * 运行：java -jar target/benchmarks.jar ConversionPhaseBenchmark -prof gc
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionPhaseBenchmark {
+
+    private static final float POINTS_PER_MM = 2.8346457f;
+
+    @Param({"xlsx", "xls"})
+    public String format;
+
+    @Param({"200", "2000"})
+    public int rows;
+
+    @Param({"20"})
+    public int columns;
+
+    @Param({"1", "64"})
+    public int styles;
+
+    @Param({"0", "0.05"})
+    public double mergeDensity;
+
+    @Param({"0", "20"})
+    public int pictures;
+
+    @Param({"0.1"})
+    public double cjkTextRatio;
+
+    @Param({"0.1"})
+    public double formulaRatio;
+
+    private byte[] excel;
+    private Workbook workbook;
+    private Sheet sheet;
+    private PdfboxConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        excel = BenchmarkWorkbooks.create(format, rows, columns, styles, mergeDensity, pictures, cjkTextRatio, formulaRatio);
+        workbook = WorkbookFactory.create(new ByteArrayInputStream(excel));
+        sheet = workbook.getSheetAt(0);
+        converter = new PdfboxConverter(Configuration.builder().build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    public Workbook parse() throws IOException {
+        try (Workbook parsed = WorkbookFactory.create(new ByteArrayInputStream(excel))) {
+            return parsed;
+        }
+    }
+
+    @Benchmark
+    public void layout(Blackhole blackhole) {
+        Row row0 = sheet.getRow(ExcelUtil.getRowNumOfMaxColumnCount(sheet));
+        GridLayout grid = GridLayout.of(ExcelUtil.getColumnWidths(sheet), row0.getFirstCellNum(),
+                ExcelUtil.getRowHeights(sheet), sheet.getFirstRowNum());
+        PDRectangle rect = PDRectangle.A4;
+        blackhole.consume(grid.splitRows(rect.getHeight() - 30));
+        blackhole.consume(grid.splitColumns(210 * POINTS_PER_MM * 0.94f));
+        blackhole.consume(MergedRegionIndex.of(sheet));
+        blackhole.consume(RenderStyles.of(workbook));
+    }
+
+    @Benchmark
+    public int render() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            converter.writeExcelSheetToPdfPages(sheet, document);
+            return document.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public long save(RenderedDocument rendered) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        rendered.document.save(out);
+        return out.count;
+    }
+
+    /**
+     * 已绘制、未保存的文档。保存会生成字体子集，同一文档只能保存一次，因此每次调用前重新绘制
+     */
+    @State(Scope.Thread)
+    public static class RenderedDocument {
+        private PDDocument document;
+
+        @Setup(Level.Invocation)
+        public void render(ConversionPhaseBenchmark benchmark) throws IOException {
+            document = new PDDocument();
+            benchmark.converter.writeExcelSheetToPdfPages(benchmark.sheet, document);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() throws IOException {
+            document.close();
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package cn.gsein.toolkit.excel.benchmark;
+
+import cn.gsein.toolkit.excel.pdf.Configuration;
+import cn.gsein.toolkit.excel.pdf.PdfboxConverter;
+import cn.gsein.toolkit.excel.util.ExcelToHtmlUtil;
+import cn.gsein.toolkit.excel.util.ExcelToPdfItextUtil;
+import cn.gsein.toolkit.excel.util.ExcelToPdfPdfBoxUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 各转换引擎的端到端基准测试，输入相同的工作簿，比较吞吐量和内存分配
+ * <p>
+ * iText引擎只接受文件路径，输入输出使用临时文件；html引擎的图片写入临时目录。
+ * 默认字体font/STXIHEI.TTF需要在classpath中。
+ * 运行：java -jar target/benchmarks.jar EngineBenchmark -prof gc
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+
+    public enum Engine {
+        PDFBOX_CONVERTER,
+        PDFBOX_UTIL,
+        ITEXT_UTIL,
+        HTML
+    }
+
+    @Param({"PDFBOX_CONVERTER", "PDFBOX_UTIL", "ITEXT_UTIL", "HTML"})
+    public Engine engine;
+
+    @Param({"xlsx", "xls"})
+    public String format;
+
+    @Param({"200", "2000"})
+    public int rows;
+
+    @Param({"20"})
+    public int columns;
+
+    @Param({"16"})
+    public int styles;
+
+    @Param({"0.02"})
+    public double mergeDensity;
+
+    @Param({"0", "20"})
+    public int pictures;
+
+    @Param({"0.1"})
+    public double cjkTextRatio;
+
+    @Param({"0.1"})
+    public double formulaRatio;
+
+    private byte[] excel;
+    private PdfboxConverter converter;
+    private Path directory;
+    private String excelPath;
+    private String pdfPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        excel = BenchmarkWorkbooks.create(format, rows, columns, styles, mergeDensity, pictures, cjkTextRatio, formulaRatio);
+        converter = new PdfboxConverter(Configuration.builder().build());
+        directory = Files.createTempDirectory("excel-benchmark");
+        Path excelFile = directory.resolve("input." + format);
+        Files.write(excelFile, excel);
+        excelPath = excelFile.toString();
+        pdfPath = directory.resolve("output.pdf").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public Object convert() throws Exception {
+        switch (engine) {
+            case PDFBOX_CONVERTER: {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                converter.convert(new ByteArrayInputStream(excel), out);
+                return out;
+            }
+            case PDFBOX_UTIL: {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ExcelToPdfPdfBoxUtil.excelToPdf(new ByteArrayInputStream(excel), out);
+                return out;
+            }
+            case ITEXT_UTIL:
+                ExcelToPdfItextUtil.excelToPdf(excelPath, pdfPath);
+                return pdfPath;
+            case HTML:
+                return ExcelToHtmlUtil.readExcelToHtml(new ByteArrayInputStream(excel), true, directory.toString());
+            default:
+                throw new IllegalStateException("unknown engine: " + engine);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package cn.gsein.toolkit.excel.benchmark;
+
+import lombok.Builder;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * 按参数生成工作簿，用于性能测试和回归测试
+ * <p>
+ * 所有内容都由随机数种子决定，相同参数生成的工作簿内容相同。可以控制行列数、单元格填充比例、
+ * 合并区域密度、样式个数、图片个数、较长的中文换行文本和公式的比例。公式在生成后计算一次，
+ * 文件中带有缓存的结果。与基准测试放在一起，只在benchmark profile中编译，不随库发布。
+ * <pre>
+ * byte[] xlsx = WorkbookGenerator.builder().rows(1000).columns(20).mergeDensity(0.02).pictures(10).build().generate();
+ * </pre>
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Builder
+public class WorkbookGenerator {
+
+    public enum Format {
+        XLS,
+        XLSX
+    }
+
+    private static final String CJK_CHARACTERS = "的一是在不了有和人这中大为上个国我以要他时来用们生到作地于出就分对成会可主发年动"
+            + "同工也能下过子说产种面而方后多定行学法所民得经十三之进着等部度家电力里如水化高自二理起小物现实加量都两体"
+            + "制机当使点从业本去把性好应开它合还因由其些然前外天政四日那社义事平形相全表间样与关各重新线内数正心反你明看"
+            + "报表格汇总统计金额合计备注说明单位日期部门项目名称编号";
+
+    /**
+     * 文件格式
+     */
+    @Builder.Default
+    private final Format format = Format.XLSX;
+
+    /**
+     * 随机数种子
+     */
+    @Builder.Default
+    private final long seed = 20200523L;
+
+    @Builder.Default
+    private final int sheets = 1;
+
+    @Builder.Default
+    private final int rows = 100;
+
+    @Builder.Default
+    private final int columns = 10;
+
+    /**
+     * 有值的单元格占全部单元格的比例，小于1时生成稀疏的sheet
+     */
+    @Builder.Default
+    private final double fillRatio = 1.0;
+
+    /**
+     * 合并区域左上角单元格占全部单元格的比例，合并区域为1~3行、1~3列，互不重叠
+     */
+    @Builder.Default
+    private final double mergeDensity = 0;
+
+    /**
+     * 不同单元格样式的个数
+     */
+    @Builder.Default
+    private final int styles = 1;
+
+    /**
+     * 每个sheet中的图片个数
+     */
+    @Builder.Default
+    private final int pictures = 0;
+
+    /**
+     * 图片的边长（像素）
+     */
+    @Builder.Default
+    private final int pictureSize = 256;
+
+    /**
+     * 文本单元格中较长的中文换行文本所占的比例
+     */
+    @Builder.Default
+    private final double cjkTextRatio = 0;
+
+    /**
+     * 数值单元格中公式所占的比例
+     */
+    @Builder.Default
+    private final double formulaRatio = 0;
+
+    /**
+     * 生成工作簿，调用方负责关闭
+     */
+    public Workbook create() {
+        Random random = new Random(seed);
+        Workbook workbook = format == Format.XLS ? new HSSFWorkbook() : new XSSFWorkbook();
+        CellStyle[] cellStyles = createStyles(workbook, random);
+        for (int i = 0; i < sheets; i++) {
+            Sheet sheet = workbook.createSheet("sheet" + (i + 1));
+            fillSheet(sheet, cellStyles, random);
+            addMergedRegions(sheet, random);
+            addPictures(workbook, sheet, random);
+        }
+        workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+        return workbook;
+    }
+
+    /**
+     * 生成工作簿并写入输出流
+     */
+    public void write(OutputStream out) throws IOException {
+        try (Workbook workbook = create()) {
+            workbook.write(out);
+        }
+    }
+
+    /**
+     * 生成工作簿文件的内容
+     */
+    public byte[] generate() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out);
+        return out.toByteArray();
+    }
+
+    private CellStyle[] createStyles(Workbook workbook, Random random) {
+        BorderStyle[] borders = {BorderStyle.THIN, BorderStyle.NONE, BorderStyle.MEDIUM, BorderStyle.DASHED};
+        HorizontalAlignment[] alignments = {HorizontalAlignment.LEFT, HorizontalAlignment.CENTER, HorizontalAlignment.RIGHT};
+        CellStyle[] cellStyles = new CellStyle[Math.max(1, styles)];
+        for (int i = 0; i < cellStyles.length; i++) {
+            CellStyle style = workbook.createCellStyle();
+            BorderStyle border = borders[i % borders.length];
+            style.setBorderTop(border);
+            style.setBorderRight(border);
+            style.setBorderBottom(border);
+            style.setBorderLeft(border);
+            style.setAlignment(alignments[random.nextInt(alignments.length)]);
+            style.setVerticalAlignment(VerticalAlignment.CENTER);
+            style.setWrapText(true);
+            style.setDataFormat((short) (i % 11));
+            if (i > 0) {
+                Font font = workbook.createFont();
+                font.setBold(random.nextBoolean());
+                font.setFontHeightInPoints((short) (9 + random.nextInt(6)));
+                style.setFont(font);
+            }
+            cellStyles[i] = style;
+        }
+        return cellStyles;
+    }
+
+    private void fillSheet(Sheet sheet, CellStyle[] cellStyles, Random random) {
+        for (int r = 0; r < rows; r++) {
+            Row row = sheet.createRow(r);
+            for (int c = 0; c < columns; c++) {
+                if (random.nextDouble() >= fillRatio) {
+                    continue;
+                }
+                Cell cell = row.createCell(c);
+                cell.setCellStyle(cellStyles[random.nextInt(cellStyles.length)]);
+                if (c % 3 != 0) {
+                    cell.setCellValue(random.nextDouble() < cjkTextRatio ? cjkText(random) : "r" + (r + 1) + "c" + (c + 1));
+                } else if (c >= 3 && random.nextDouble() < formulaRatio) {
+                    // 对左侧三列求和，空单元格按0计算
+                    String from = new CellReference(r, c - 3).formatAsString();
+                    String to = new CellReference(r, c - 1).formatAsString();
+                    cell.setCellFormula("SUM(" + from + ":" + to + ")");
+                } else {
+                    cell.setCellValue(random.nextInt(10000000) / 100.0);
+                }
+            }
+        }
+        for (int c = 0; c < columns; c++) {
+            sheet.setColumnWidth(c, 256 * (8 + random.nextInt(12)));
+        }
+    }
+
+    private static String cjkText(Random random) {
+        int length = 20 + random.nextInt(60);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(CJK_CHARACTERS.charAt(random.nextInt(CJK_CHARACTERS.length())));
+        }
+        return text.toString();
+    }
+
+    private void addMergedRegions(Sheet sheet, Random random) {
+        if (mergeDensity <= 0) {
+            return;
+        }
+        // 已被合并区域占用的单元格
+        BitSet used = new BitSet(rows * columns);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (random.nextDouble() >= mergeDensity) {
+                    continue;
+                }
+                int lastRow = Math.min(rows - 1, r + random.nextInt(3));
+                int lastColumn = Math.min(columns - 1, c + random.nextInt(3));
+                if ((lastRow == r && lastColumn == c) || isUsed(used, r, lastRow, c, lastColumn)) {
+                    continue;
+                }
+                for (int i = r; i <= lastRow; i++) {
+                    used.set(i * columns + c, i * columns + lastColumn + 1);
+                }
+                sheet.addMergedRegion(new CellRangeAddress(r, lastRow, c, lastColumn));
+            }
+        }
+    }
+
+    private boolean isUsed(BitSet used, int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        for (int i = firstRow; i <= lastRow; i++) {
+            int next = used.nextSetBit(i * columns + firstColumn);
+            if (next >= 0 && next <= i * columns + lastColumn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addPictures(Workbook workbook, Sheet sheet, Random random) {
+        if (pictures <= 0) {
+            return;
+        }
+        Drawing<?> drawing = sheet.createDrawingPatriarch();
+        for (int i = 0; i < pictures; i++) {
+            int index = workbook.addPicture(createPng(random), Workbook.PICTURE_TYPE_PNG);
+            ClientAnchor anchor = workbook.getCreationHelper().createClientAnchor();
+            int row = random.nextInt(rows);
+            int column = random.nextInt(columns);
+            anchor.setRow1(row);
+            anchor.setCol1(column);
+            anchor.setRow2(Math.min(rows - 1, row + 1 + random.nextInt(3)));
+            anchor.setCol2(Math.min(columns - 1, column + 1 + random.nextInt(2)));
+            drawing.createPicture(anchor, index);
+        }
+    }
+
+    private byte[] createPng(Random random) {
+        BufferedImage image = new BufferedImage(pictureSize, pictureSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(random.nextInt(0xffffff)));
+        graphics.fillRect(0, 0, pictureSize, pictureSize);
+        graphics.setColor(new Color(random.nextInt(0xffffff)));
+        graphics.fillOval(pictureSize / 8, pictureSize / 8, pictureSize * 3 / 4, pictureSize * 3 / 4);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            // 写入内存不会出现IO异常
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,44 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import cn.gsein.toolkit.excel.benchmark.WorkbookGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class Test {
+
+    /**
+     * 用法：Test [excel文件] pdf文件，不指定excel文件时使用生成的工作簿
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: Test [excel] pdf");
+            return;
+        }
+        Path pdfPath = Paths.get(args[args.length - 1]);
+        InputStream excelInput;
+        if (args.length > 1) {
+            excelInput = Files.newInputStream(Paths.get(args[0]));
+        } else {
+            excelInput = new ByteArrayInputStream(WorkbookGenerator.builder()
+                    .rows(1000)
+                    .columns(20)
+                    .styles(16)
+                    .mergeDensity(0.02)
+                    .pictures(5)
+                    .cjkTextRatio(0.1)
+                    .formulaRatio(0.1)
+                    .build()
+                    .generate());
+        }
+        try (InputStream in = excelInput; OutputStream pdfOutput = Files.newOutputStream(pdfPath)) {
+            Converter converter = new PdfboxConverter(Configuration.builder().build());
+            converter.convert(in, pdfOutput);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package cn.gsein.toolkit.excel.jfr;
+
+/**
+ * 转换过程中的JFR事件
+ * <p>
+ * 每个事件由begin方法开始，返回的对象传给对应的end方法结束并提交。没有在录制或JVM不支持JFR时begin返回null，
+ * end方法直接返回，开销只有一次判断。JFR的类只在{@link JfrEvents}中引用，在没有jdk.jfr的JVM（8u262之前）上不会被加载。
+ * 录制：-XX:StartFlightRecording，事件位于“Excel to PDF”分类下。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class ConversionEvents {
+    private ConversionEvents() {
+    }
+
+    private static final boolean AVAILABLE = isJfrAvailable();
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析整个工作簿
+     */
+    public static Object beginWorkbookParse() {
+        return AVAILABLE ? JfrEvents.beginWorkbookParse() : null;
+    }
+
+    public static void endWorkbookParse(Object event, long bytes, int sheets) {
+        if (event != null) {
+            JfrEvents.endWorkbookParse(event, bytes, sheets);
+        }
+    }
+
+    /**
+     * 流式转换时逐行读取并输出一个sheet
+     */
+    public static Object beginSheetParse() {
+        return AVAILABLE ? JfrEvents.beginSheetParse() : null;
+    }
+
+    public static void endSheetParse(Object event, int sheetIndex, String sheetName, int rows, long cells, int pages) {
+        if (event != null) {
+            JfrEvents.endSheetParse(event, sheetIndex, sheetName, rows, cells, pages);
+        }
+    }
+
+    /**
+     * 计算一个sheet的版面
+     */
+    public static Object beginSheetLayout() {
+        return AVAILABLE ? JfrEvents.beginSheetLayout() : null;
+    }
+
+    public static void endSheetLayout(Object event, String sheetName, int rows, int columns, int mergedRegions, int pages) {
+        if (event != null) {
+            JfrEvents.endSheetLayout(event, sheetName, rows, columns, mergedRegions, pages);
+        }
+    }
+
+    /**
+     * 绘制一页
+     */
+    public static Object beginPageRender() {
+        return AVAILABLE ? JfrEvents.beginPageRender() : null;
+    }
+
+    public static void endPageRender(Object event, String sheetName, int startRow, int rows, int startColumn, int columns) {
+        if (event != null) {
+            JfrEvents.endPageRender(event, sheetName, startRow, rows, startColumn, columns);
+        }
+    }
+
+    /**
+     * 解码图片并嵌入pdf
+     */
+    public static Object beginImageEmbed() {
+        return AVAILABLE ? JfrEvents.beginImageEmbed() : null;
+    }
+
+    public static void endImageEmbed(Object event, long bytes, int width, int height) {
+        if (event != null) {
+            JfrEvents.endImageEmbed(event, bytes, width, height);
+        }
+    }
+
+    /**
+     * 为文档加载字体
+     */
+    public static Object beginFontLoad() {
+        return AVAILABLE ? JfrEvents.beginFontLoad() : null;
+    }
+
+    public static void endFontLoad(Object event, String path, boolean parsed, int glyphs) {
+        if (event != null) {
+            JfrEvents.endFontLoad(event, path, parsed, glyphs);
+        }
+    }
+
+    /**
+     * 写出pdf
+     */
+    public static Object beginDocumentSave() {
+        return AVAILABLE ? JfrEvents.beginDocumentSave() : null;
+    }
+
+    public static void endDocumentSave(Object event, int pages, long bytes) {
+        if (event != null) {
+            JfrEvents.endDocumentSave(event, pages, bytes);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 生成字体子集并写出pdf
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Name("cn.gsein.excel.DocumentSave")
+@Label("Document Save")
+@Category({"Excel to PDF"})
+@Description("生成字体子集并写出pdf")
+class DocumentSaveEvent extends Event {
+
+    @Label("Pages")
+    int pages;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,30 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 为文档加载字体，首次使用时解析字体文件
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Name("cn.gsein.excel.FontLoad")
+@Label("Font Load")
+@Category({"Excel to PDF"})
+@Description("为文档加载字体，首次使用时解析字体文件")
+class FontLoadEvent extends Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Parsed")
+    @Description("是否解析了字体文件，为false时使用已解析的字体")
+    boolean parsed;
+
+    @Label("Glyphs")
+    int glyphs;
+}
@@ -0,0 +1,31 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 解码图片并嵌入pdf
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Name("cn.gsein.excel.ImageEmbed")
+@Label("Image Embed")
+@Category({"Excel to PDF"})
+@Description("解码图片并嵌入pdf")
+class ImageEmbedEvent extends Event {
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+}
@@ -0,0 +1,132 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Event;
+
+/**
+ * 创建、提交JFR事件，只在JFR可用时由{@link ConversionEvents}调用。
+ * 没有在录制时begin方法返回null，调用方不再记录事件的字段
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+final class JfrEvents {
+    private JfrEvents() {
+    }
+
+    private static Event begin(Event event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static Object beginWorkbookParse() {
+        return begin(new WorkbookParseEvent());
+    }
+
+    static void endWorkbookParse(Object token, long bytes, int sheets) {
+        WorkbookParseEvent event = (WorkbookParseEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes;
+            event.sheets = sheets;
+            event.commit();
+        }
+    }
+
+    static Object beginSheetParse() {
+        return begin(new SheetParseEvent());
+    }
+
+    static void endSheetParse(Object token, int sheetIndex, String sheetName, int rows, long cells, int pages) {
+        SheetParseEvent event = (SheetParseEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.sheetIndex = sheetIndex;
+            event.sheetName = sheetName;
+            event.rows = rows;
+            event.cells = cells;
+            event.pages = pages;
+            event.commit();
+        }
+    }
+
+    static Object beginSheetLayout() {
+        return begin(new SheetLayoutEvent());
+    }
+
+    static void endSheetLayout(Object token, String sheetName, int rows, int columns, int mergedRegions, int pages) {
+        SheetLayoutEvent event = (SheetLayoutEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.sheetName = sheetName;
+            event.rows = rows;
+            event.columns = columns;
+            event.mergedRegions = mergedRegions;
+            event.pages = pages;
+            event.commit();
+        }
+    }
+
+    static Object beginPageRender() {
+        return begin(new PageRenderEvent());
+    }
+
+    static void endPageRender(Object token, String sheetName, int startRow, int rows, int startColumn, int columns) {
+        PageRenderEvent event = (PageRenderEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.sheetName = sheetName;
+            event.startRow = startRow;
+            event.rows = rows;
+            event.startColumn = startColumn;
+            event.columns = columns;
+            event.commit();
+        }
+    }
+
+    static Object beginImageEmbed() {
+        return begin(new ImageEmbedEvent());
+    }
+
+    static void endImageEmbed(Object token, long bytes, int width, int height) {
+        ImageEmbedEvent event = (ImageEmbedEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes;
+            event.width = width;
+            event.height = height;
+            event.commit();
+        }
+    }
+
+    static Object beginFontLoad() {
+        return begin(new FontLoadEvent());
+    }
+
+    static void endFontLoad(Object token, String path, boolean parsed, int glyphs) {
+        FontLoadEvent event = (FontLoadEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.parsed = parsed;
+            event.glyphs = glyphs;
+            event.commit();
+        }
+    }
+
+    static Object beginDocumentSave() {
+        return begin(new DocumentSaveEvent());
+    }
+
+    static void endDocumentSave(Object token, int pages, long bytes) {
+        DocumentSaveEvent event = (DocumentSaveEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.pages = pages;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+}
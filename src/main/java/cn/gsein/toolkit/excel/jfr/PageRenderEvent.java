@@ -0,0 +1,35 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 绘制一页的文字和边框
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Name("cn.gsein.excel.PageRender")
+@Label("Page Render")
+@Category({"Excel to PDF"})
+@Description("绘制一页的文字和边框")
+class PageRenderEvent extends Event {
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Start Row")
+    int startRow;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Start Column")
+    int startColumn;
+
+    @Label("Columns")
+    int columns;
+}
@@ -0,0 +1,35 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 计算一个sheet的列宽、行高、合并区域和分页
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Name("cn.gsein.excel.SheetLayout")
+@Label("Sheet Layout")
+@Category({"Excel to PDF"})
+@Description("计算一个sheet的列宽、行高、合并区域和分页")
+class SheetLayoutEvent extends Event {
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+
+    @Label("Merged Regions")
+    int mergedRegions;
+
+    @Label("Pages")
+    int pages;
+}
@@ -0,0 +1,35 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 流式转换时逐行读取并输出一个sheet
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Name("cn.gsein.excel.SheetParse")
+@Label("Sheet Parse")
+@Category({"Excel to PDF"})
+@Description("流式转换时逐行读取并输出一个sheet")
+class SheetParseEvent extends Event {
+
+    @Label("Sheet Index")
+    int sheetIndex;
+
+    @Label("Sheet Name")
+    String sheetName;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Cells")
+    long cells;
+
+    @Label("Pages")
+    int pages;
+}
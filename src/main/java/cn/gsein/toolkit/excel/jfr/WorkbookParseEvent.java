@@ -0,0 +1,28 @@
+package cn.gsein.toolkit.excel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 解析整个工作簿
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Name("cn.gsein.excel.WorkbookParse")
+@Label("Workbook Parse")
+@Category({"Excel to PDF"})
+@Description("解析整个工作簿")
+class WorkbookParseEvent extends Event {
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Sheets")
+    int sheets;
+}
@@ -0,0 +1,100 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import org.apache.pdfbox.util.Hex;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 带结果缓存的转换器
+ * <p>
+ * 缓存的键为excel内容和影响输出的配置（转换器类型、纸张大小、方向、是否流式、是否边生成边输出）的SHA-256，
+ * 相同的excel以相同方式转换时直接把缓存的pdf写入输出流。并行度、缓存方式等不影响输出的配置不计入键。
+ * 计算键需要先读完整个excel：输入边计算摘要边写入临时目录中的临时文件，未命中时再从临时文件转换，
+ * 不在内存中保留整个excel。未命中时转换结果同时写入输出流和缓存，不影响边生成边输出；
+ * 写入缓存时不在内存中保留整个pdf，超过缓存容量的结果不缓存（见{@link ConversionCache#newEntry(String)}）。
+ * 同一个excel同时被多次请求且都未命中时，每次请求都会转换。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public class CachingConverter extends Converter {
+
+    private final Converter delegate;
+    private final ConversionCache cache;
+
+    public CachingConverter(Converter delegate, ConversionCache cache) {
+        super(delegate);
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public void convert(InputStream excelInput, OutputStream pdfOutput) throws IOException {
+        Path excel = tempDirectory != null
+                ? Files.createTempFile(tempDirectory.toPath(), "excel", ".tmp")
+                : Files.createTempFile("excel", ".tmp");
+        try {
+            String key = spool(excelInput, excel);
+            if (cache.writeTo(key, pdfOutput)) {
+                return;
+            }
+            try (InputStream in = Files.newInputStream(excel);
+                 ConversionCache.EntryOutputStream entry = cache.newEntry(key)) {
+                delegate.convert(in, new TeeOutputStream(pdfOutput, entry));
+                entry.commit();
+            }
+        } finally {
+            Files.deleteIfExists(excel);
+        }
+    }
+
+    /**
+     * 把excel写入临时文件，同时计算缓存的键
+     */
+    private String spool(InputStream excelInput, Path excel) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String options = delegate.getClass().getName() + '|' + pageSize + '|' + mode + '|' + streaming + '|' + incrementalOutput;
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        Files.copy(new DigestInputStream(excelInput, digest), excel, StandardCopyOption.REPLACE_EXISTING);
+        return Hex.getString(digest.digest());
+    }
+
+    /**
+     * 同时写入两个输出流，只关闭第一个
+     */
+    private static final class TeeOutputStream extends FilterOutputStream {
+        private final OutputStream copy;
+
+        private TeeOutputStream(OutputStream out, OutputStream copy) {
+            super(out);
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+    }
+}
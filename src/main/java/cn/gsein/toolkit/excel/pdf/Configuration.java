@@ -2,6 +2,9 @@ package cn.gsein.toolkit.excel.pdf;
 
 import lombok.Builder;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+
 @Builder
 public class Configuration {
 
@@ -11,5 +14,48 @@ public class Configuration {
     @Builder.Default
     public Mode mode = Mode.PORTRAIT;
 
+    /**
+     * 是否使用流式转换（逐行读取xlsx并按页输出，内存占用与行数无关）
+     */
+    @Builder.Default
+    public boolean streaming = false;
+
+    /**
+     * 是否边生成边输出：每页生成后立即写入输出流，字体等共用资源和文档结构最后写出（不适用于流式转换）
+     */
+    @Builder.Default
+    public boolean incrementalOutput = false;
+
+    /**
+     * 并行渲染sheet的线程数，1表示按顺序渲染
+     */
+    @Builder.Default
+    public int parallelism = 1;
+
+    /**
+     * 并行渲染使用的线程池，由调用方管理生命周期；为空时每次转换创建parallelism个线程的线程池
+     */
+    public ExecutorService executor;
+
+    /**
+     * pdfbox文档的缓存方式，为空时普通转换只使用内存，流式转换只使用临时文件
+     */
+    public MemoryMode memoryMode;
+
+    /**
+     * MIXED方式下最多使用的内存（字节），超出的部分写入临时文件
+     */
+    @Builder.Default
+    public long maxMainMemoryBytes = 64L * 1024 * 1024;
+
+    /**
+     * 临时文件所在的目录，为空时使用系统临时目录
+     */
+    public File tempDirectory;
+
+    /**
+     * 转换过程的监听器，为空时不回调
+     */
+    public ConversionListener listener;
 
 }
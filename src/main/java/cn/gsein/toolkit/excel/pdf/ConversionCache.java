@@ -0,0 +1,368 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 转换结果缓存
+ * <p>
+ * 分为内存和磁盘两级，都按最近最少使用淘汰，容量按字节计算。加入缓存时同时写入两级，
+ * 磁盘中的文件以键命名，重启后仍然有效，启动时按文件的修改时间恢复使用顺序。
+ * 结果可以边生成边写入缓存（见{@link #newEntry(String)}）：先写入缓存目录中的临时文件，完成后改名，
+ * 内存中只保留不超过内存容量的结果；超过某一级容量后不再向该级复制。
+ * 命中磁盘时，大小不超过内存容量的结果会读入内存，否则直接从文件复制到输出流。
+ * 缓存可以被多个线程、多个{@link CachingConverter}共用。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public class ConversionCache {
+
+    private static final String SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * 写入中的临时文件名：键（SHA-256的十六进制）+ Files.createTempFile生成的数字 + .tmp
+     */
+    private static final Pattern TEMP_NAME = Pattern.compile("[0-9A-Fa-f]{64}\\d+\\.tmp");
+
+    /**
+     * 超过这个时间没有修改的临时文件视为写入未完成留下的
+     */
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final long maxMemoryBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    /**
+     * 磁盘中的结果及其大小
+     */
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 只使用内存的缓存
+     *
+     * @param maxMemoryBytes 内存中最多缓存的字节数
+     */
+    public ConversionCache(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = null;
+        this.maxDiskBytes = 0;
+    }
+
+    /**
+     * 使用内存和磁盘的缓存
+     *
+     * @param maxMemoryBytes 内存中最多缓存的字节数
+     * @param directory      缓存目录，不存在时创建
+     * @param maxDiskBytes   磁盘中最多缓存的字节数
+     */
+    public ConversionCache(long maxMemoryBytes, File directory, long maxDiskBytes) throws IOException {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory.toPath();
+        this.maxDiskBytes = maxDiskBytes;
+        Files.createDirectories(this.directory);
+        loadDirectory();
+    }
+
+    /**
+     * 命中时把结果写入输出流
+     *
+     * @return 是否命中
+     */
+    public boolean writeTo(String key, OutputStream out) throws IOException {
+        byte[] pdf;
+        boolean onDisk;
+        synchronized (this) {
+            pdf = memory.get(key);
+            onDisk = pdf == null && disk.get(key) != null;
+        }
+        if (pdf != null) {
+            hits.incrementAndGet();
+            out.write(pdf);
+            return true;
+        }
+        if (onDisk && writeFromDisk(key, out)) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 加入缓存
+     */
+    public void put(String key, byte[] pdf) throws IOException {
+        try (EntryOutputStream entry = newEntry(key)) {
+            entry.write(pdf);
+            entry.commit();
+        }
+    }
+
+    /**
+     * 开始写入一个结果，写完后调用{@link EntryOutputStream#commit()}加入缓存；未提交就关闭时丢弃已写入的内容
+     */
+    public EntryOutputStream newEntry(String key) throws IOException {
+        return new EntryOutputStream(key);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    private boolean writeFromDisk(String key, OutputStream out) throws IOException {
+        Path file = fileOf(key);
+        try {
+            if (Files.size(file) <= maxMemoryBytes) {
+                byte[] pdf = Files.readAllBytes(file);
+                synchronized (this) {
+                    putInMemory(key, pdf);
+                }
+                out.write(pdf);
+            } else {
+                // 已打开的文件即使被淘汰删除也可以继续读完
+                Files.copy(file, out);
+            }
+            // 修改时间记录最近使用时间，重启后据此恢复淘汰顺序
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                Long size = disk.remove(key);
+                if (size != null) {
+                    diskBytes -= size;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void putInMemory(String key, byte[] pdf) {
+        if (pdf.length > maxMemoryBytes) {
+            return;
+        }
+        byte[] previous = memory.put(key, pdf);
+        memoryBytes += pdf.length - (previous == null ? 0 : previous.length);
+        Iterator<byte[]> eldest = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes) {
+            memoryBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    private void evictDisk() throws IOException {
+        Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes) {
+            Map.Entry<String, Long> entry = eldest.next();
+            Files.deleteIfExists(fileOf(entry.getKey()));
+            diskBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private void loadDirectory() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (isStaleTemp(file, name)) {
+                    // 上次写入未完成留下的临时文件。目录可能被其他进程或其他缓存实例共用，只删除较早的
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            disk.put(name.substring(0, name.length() - SUFFIX.length()), size);
+            diskBytes += size;
+        }
+        evictDisk();
+    }
+
+    private static boolean isStaleTemp(Path file, String name) throws IOException {
+        if (!TEMP_NAME.matcher(name).matches()) {
+            return false;
+        }
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < System.currentTimeMillis() - STALE_TEMP_MILLIS;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    /**
+     * 正在写入缓存的结果。内容同时写入内存缓冲区和缓存目录中的临时文件，
+     * 大小超过内存容量后丢弃缓冲区，超过磁盘容量后删除临时文件，两级都放不下时不再复制。不能被多个线程同时使用
+     */
+    public final class EntryOutputStream extends OutputStream {
+        private final String key;
+        /**
+         * 内存缓冲区，不放入内存时为null
+         */
+        private ByteArrayOutputStream buffer;
+        private Path temp;
+        /**
+         * 临时文件的输出流，不写入磁盘时为null
+         */
+        private OutputStream file;
+        private long size;
+        private boolean closed;
+
+        private EntryOutputStream(String key) throws IOException {
+            this.key = key;
+            if (maxMemoryBytes > 0) {
+                buffer = new ByteArrayOutputStream();
+            }
+            if (directory != null && maxDiskBytes > 0) {
+                temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+                file = new BufferedOutputStream(Files.newOutputStream(temp));
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!accept(1)) {
+                return;
+            }
+            if (buffer != null) {
+                buffer.write(b);
+            }
+            if (file != null) {
+                file.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!accept(len)) {
+                return;
+            }
+            if (buffer != null) {
+                buffer.write(b, off, len);
+            }
+            if (file != null) {
+                file.write(b, off, len);
+            }
+        }
+
+        /**
+         * 写入完成，把结果加入缓存
+         */
+        public void commit() throws IOException {
+            if (closed) {
+                throw new IllegalStateException("缓存项已关闭：" + key);
+            }
+            closed = true;
+            if (buffer != null) {
+                byte[] pdf = buffer.toByteArray();
+                buffer = null;
+                synchronized (ConversionCache.this) {
+                    putInMemory(key, pdf);
+                }
+            }
+            if (file != null) {
+                try {
+                    file.close();
+                    file = null;
+                    Files.move(temp, fileOf(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    discardFile();
+                }
+                synchronized (ConversionCache.this) {
+                    Long previous = disk.put(key, size);
+                    diskBytes += size - (previous == null ? 0 : previous);
+                    evictDisk();
+                }
+            }
+        }
+
+        /**
+         * 未提交时丢弃已写入的内容
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer = null;
+            discardFile();
+        }
+
+        /**
+         * 计入写入的字节数，返回是否还需要复制
+         */
+        private boolean accept(int len) throws IOException {
+            if (closed) {
+                throw new IOException("缓存项已关闭：" + key);
+            }
+            size += len;
+            if (buffer != null && size > maxMemoryBytes) {
+                buffer = null;
+            }
+            if (file != null && size > maxDiskBytes) {
+                discardFile();
+            }
+            return buffer != null || file != null;
+        }
+
+        private void discardFile() throws IOException {
+            try {
+                if (file != null) {
+                    file.close();
+                }
+            } finally {
+                file = null;
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package cn.gsein.toolkit.excel.pdf;
+
+/**
+ * 转换过程的监听器，用于采集各阶段耗时、数量和内存等指标
+ * <p>
+ * 回调在调用convert的线程中、convert返回之前执行，回调中抛出的异常会由convert抛出。
+ * 同一个监听器可能被多个线程中的转换同时回调，实现类需要自行保证线程安全。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public interface ConversionListener {
+
+    /**
+     * 转换成功完成
+     */
+    void onConverted(ConversionMetrics metrics);
+
+    /**
+     * 转换失败，metrics中只包含失败前已完成的部分
+     */
+    default void onFailed(ConversionMetrics metrics, Throwable error) {
+    }
+}
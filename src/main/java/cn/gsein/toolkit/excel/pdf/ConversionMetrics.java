@@ -0,0 +1,61 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 一次转换的指标
+ * <p>
+ * 版面和绘制耗时为各sheet之和，并行转换时各sheet同时进行，两者之和可能大于总耗时。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ConversionMetrics {
+
+    /**
+     * 总耗时（纳秒）
+     */
+    private final long totalNanos;
+    /**
+     * 读取、解析excel的耗时（纳秒），流式转换时只包含读入临时文件的时间
+     */
+    private final long parseNanos;
+    /**
+     * 各sheet计算版面的耗时之和（纳秒）
+     */
+    private final long layoutNanos;
+    /**
+     * 各sheet绘制页面的耗时之和（纳秒）
+     */
+    private final long drawNanos;
+    /**
+     * 生成字体子集、写出pdf的耗时（纳秒）。边生成边输出时页面在绘制时已写出，只包含最后写出共用资源和文档结构的时间
+     */
+    private final long saveNanos;
+    private final long cellCount;
+    private final int pageCount;
+    private final int imageCount;
+    /**
+     * 读入的excel字节数
+     */
+    private final long bytesIn;
+    /**
+     * 写出的pdf字节数
+     */
+    private final long bytesOut;
+    /**
+     * 转换期间堆内存占用相对开始时的最大增量（字节），在阶段边界采样得到，仅为估算
+     */
+    private final long peakMemoryBytes;
+    /**
+     * 各sheet的指标，按sheet顺序排列，没有内容的sheet可能不计入
+     */
+    private final List<SheetMetrics> sheets;
+}
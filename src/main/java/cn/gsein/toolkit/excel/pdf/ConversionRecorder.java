@@ -0,0 +1,202 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 记录一次转换的各项指标，转换结束后生成{@link ConversionMetrics}
+ * <p>
+ * 解析和保存阶段在转换线程中记录，sheet的指标可以在渲染线程中记录。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+final class ConversionRecorder {
+
+    private static final Runtime RUNTIME = Runtime.getRuntime();
+
+    private final long startNanos = System.nanoTime();
+    private final long baselineMemory = usedMemory();
+    private final AtomicLong peakMemory = new AtomicLong(baselineMemory);
+
+    private long parseNanos;
+    private long saveNanos;
+    private final List<SheetMetrics> sheets = new ArrayList<>();
+
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    /**
+     * 统计读入字节数的输入流，不关闭原输入流
+     */
+    InputStream countInput(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b >= 0) {
+                    bytesIn.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if (n > 0) {
+                    bytesIn.addAndGet(n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = in.skip(n);
+                bytesIn.addAndGet(skipped);
+                return skipped;
+            }
+
+            /**
+             * 不支持mark，避免读取文件头后reset重复计数
+             */
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * 统计写出字节数的输出流，不关闭原输出流
+     */
+    OutputStream countOutput(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesOut.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytesOut.addAndGet(len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    void parsed(long startNanos) {
+        parseNanos = System.nanoTime() - startNanos;
+        sampleMemory();
+    }
+
+    void saved(long startNanos) {
+        saveNanos = System.nanoTime() - startNanos;
+        sampleMemory();
+    }
+
+    /**
+     * 开始记录一个sheet
+     */
+    SheetRecorder startSheet(int sheetIndex, String sheetName) {
+        return new SheetRecorder(sheetIndex, sheetName);
+    }
+
+    /**
+     * 采样当前的堆内存占用
+     */
+    long sampleMemory() {
+        long used = usedMemory();
+        peakMemory.accumulateAndGet(used, Math::max);
+        return used;
+    }
+
+    ConversionMetrics finish() {
+        List<SheetMetrics> sorted;
+        synchronized (sheets) {
+            sorted = new ArrayList<>(sheets);
+        }
+        sorted.sort(Comparator.comparingInt(SheetMetrics::getSheetIndex));
+        long layoutNanos = 0;
+        long drawNanos = 0;
+        long cellCount = 0;
+        int pageCount = 0;
+        int imageCount = 0;
+        for (SheetMetrics sheet : sorted) {
+            layoutNanos += sheet.getLayoutNanos();
+            drawNanos += sheet.getDrawNanos();
+            cellCount += sheet.getCellCount();
+            pageCount += sheet.getPageCount();
+            imageCount += sheet.getImageCount();
+        }
+        return new ConversionMetrics(System.nanoTime() - startNanos, parseNanos, layoutNanos, drawNanos, saveNanos,
+                cellCount, pageCount, imageCount, bytesIn.get(), bytesOut.get(),
+                Math.max(0, peakMemory.get() - baselineMemory), sorted);
+    }
+
+    private static long usedMemory() {
+        return RUNTIME.totalMemory() - RUNTIME.freeMemory();
+    }
+
+    /**
+     * 记录单个sheet，同一时刻只在一个线程中使用（并行转换时在当前线程开始，在渲染线程中结束）
+     */
+    final class SheetRecorder {
+        private final int sheetIndex;
+        private final String sheetName;
+        private final long sheetStartNanos = System.nanoTime();
+        private final long startMemory = sampleMemory();
+        private long maxMemory = startMemory;
+        private long layoutNanos;
+        private long cellCount;
+
+        private SheetRecorder(int sheetIndex, String sheetName) {
+            this.sheetIndex = sheetIndex;
+            this.sheetName = sheetName;
+        }
+
+        void laidOut() {
+            layoutNanos = System.nanoTime() - sheetStartNanos;
+            maxMemory = Math.max(maxMemory, sampleMemory());
+        }
+
+        void addCells(long count) {
+            cellCount += count;
+        }
+
+        void finish(int pageCount) {
+            long drawNanos = System.nanoTime() - sheetStartNanos - layoutNanos;
+            maxMemory = Math.max(maxMemory, sampleMemory());
+            // 目前只有文字和边框，不绘制图片
+            SheetMetrics metrics = new SheetMetrics(sheetIndex, sheetName, layoutNanos, drawNanos, cellCount, pageCount,
+                    0, maxMemory - startMemory);
+            synchronized (sheets) {
+                sheets.add(metrics);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步转换服务
+ * <p>
+ * 转换在固定线程数的线程池中执行，等待队列有上限。队列已满时新的转换不再排队，返回的future立即以
+ * {@link RejectedExecutionException}失败，调用方可以据此返回“服务繁忙”，避免突发请求同时转换耗尽内存。
+ * 所有转换共用同一个Converter，Converter只持有配置，可以被多个线程同时使用。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public class ConversionService implements AutoCloseable {
+
+    private final Converter converter;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param converter     转换器
+     * @param threads       同时进行的转换数
+     * @param queueCapacity 最多等待的转换数，超出时拒绝
+     */
+    public ConversionService(Converter converter, int threads, int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        this.converter = converter;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ConversionThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 异步转换。转换完成前调用方不能关闭输入输出流，转换结束后流也不会被关闭
+     */
+    public CompletableFuture<Void> submit(InputStream excelInput, OutputStream pdfOutput) {
+        return submit(() -> {
+            converter.convert(excelInput, pdfOutput);
+            return null;
+        });
+    }
+
+    /**
+     * 异步转换内存中的excel，返回pdf的字节
+     */
+    public CompletableFuture<byte[]> submit(byte[] excel) {
+        return submit(() -> {
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            converter.convert(new ByteArrayInputStream(excel), pdf);
+            return pdf.toByteArray();
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> conversion) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(conversion, future));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(Callable<T> conversion, CompletableFuture<T> future) {
+        // 在队列中等待时已被取消
+        if (future.isDone()) {
+            return;
+        }
+        inFlight.incrementAndGet();
+        T result;
+        try {
+            result = conversion.call();
+        } catch (Throwable e) {
+            // 先更新计数再完成future，回调中看到的计数已包含本次转换
+            inFlight.decrementAndGet();
+            failed.incrementAndGet();
+            future.completeExceptionally(e);
+            return;
+        }
+        inFlight.decrementAndGet();
+        completed.incrementAndGet();
+        future.complete(result);
+    }
+
+    /**
+     * 正在等待的转换数
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 等待队列的剩余容量
+     */
+    public int getRemainingCapacity() {
+        return executor.getQueue().remainingCapacity();
+    }
+
+    /**
+     * 正在进行的转换数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 成功完成的转换数
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * 失败的转换数
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * 因队列已满或服务已关闭而被拒绝的转换数
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * 不再接受新的转换，已提交的转换继续执行
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * 等待已提交的转换全部结束
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private static final class ConversionThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private final int poolNumber = POOL_NUMBER.incrementAndGet();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "excel-to-pdf-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
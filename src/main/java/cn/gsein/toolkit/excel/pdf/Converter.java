@@ -1,8 +1,10 @@
 package cn.gsein.toolkit.excel.pdf;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
 
 public abstract class Converter {
 
@@ -10,9 +12,49 @@ public abstract class Converter {
 
     protected final Mode mode;
 
+    protected final boolean streaming;
+
+    protected final boolean incrementalOutput;
+
+    protected final int parallelism;
+
+    protected final ExecutorService executor;
+
+    protected final MemoryMode memoryMode;
+
+    protected final long maxMainMemoryBytes;
+
+    protected final File tempDirectory;
+
+    protected final ConversionListener listener;
+
     public Converter(Configuration configuration) {
         this.pageSize = configuration.pageSize;
         this.mode = configuration.mode;
+        this.streaming = configuration.streaming;
+        this.incrementalOutput = configuration.incrementalOutput;
+        this.parallelism = configuration.parallelism;
+        this.executor = configuration.executor;
+        this.memoryMode = configuration.memoryMode;
+        this.maxMainMemoryBytes = configuration.maxMainMemoryBytes;
+        this.tempDirectory = configuration.tempDirectory;
+        this.listener = configuration.listener;
+    }
+
+    /**
+     * 使用另一个转换器的配置，用于包装其他转换器
+     */
+    protected Converter(Converter other) {
+        this.pageSize = other.pageSize;
+        this.mode = other.mode;
+        this.streaming = other.streaming;
+        this.incrementalOutput = other.incrementalOutput;
+        this.parallelism = other.parallelism;
+        this.executor = other.executor;
+        this.memoryMode = other.memoryMode;
+        this.maxMainMemoryBytes = other.maxMainMemoryBytes;
+        this.tempDirectory = other.tempDirectory;
+        this.listener = other.listener;
     }
 
     public abstract void convert(InputStream excelInput, OutputStream pdfOutput) throws IOException;
@@ -0,0 +1,297 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSBoolean;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.util.Hex;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 边生成边输出的pdf写入器
+ * <p>
+ * 每页的内容流和页面对象在{@link #addPage(byte[])}时立即写入输出流并flush，不在内存中保留；
+ * 所有页面共用的资源字典（含字体）、页面树、目录、交叉引用表和trailer在{@link #finish()}时写出，
+ * 因此字体子集需要在调用finish之前生成。文档ID由各页内容计算，相同输入的输出字节完全一致。
+ * 写入器不关闭输出流。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+class IncrementalPdfWriter implements PageSink {
+
+    private static final byte[] HEADER = {'%', 'P', 'D', 'F', '-', '1', '.', '4', '\n', '%', (byte) 0xe2, (byte) 0xe3, (byte) 0xcf, (byte) 0xd3, '\n'};
+
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int RESOURCES = 3;
+
+    private final CountingOutputStream out;
+    private final COSArray mediaBox;
+    private final COSDictionary resources;
+    private final MessageDigest digest;
+
+    /**
+     * offsets.get(i)为第i个对象在文件中的位置，第0个对象为空
+     */
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Integer> pageNumbers = new ArrayList<>();
+
+    /**
+     * 共用对象（资源字典中的字体、字体文件等）及其对象号，在finish时写出
+     */
+    private final Map<COSBase, Integer> references = new IdentityHashMap<>();
+    private final Deque<COSBase> pending = new ArrayDeque<>();
+
+    IncrementalPdfWriter(OutputStream output, PDRectangle rect, PDResources resources) throws IOException {
+        this.out = new CountingOutputStream(new BufferedOutputStream(output, 64 * 1024));
+        this.mediaBox = rect.getCOSArray();
+        this.resources = resources.getCOSObject();
+        this.digest = newMd5Digest();
+        for (int i = 0; i <= RESOURCES; i++) {
+            offsets.add(0L);
+        }
+        out.write(HEADER);
+    }
+
+    @Override
+    public void addPage(byte[] content) throws IOException {
+        digest.update(content);
+
+        int contentNumber = allocate();
+        beginObject(contentNumber);
+        write("<< /Length " + content.length + " /Filter /FlateDecode >>\nstream\n");
+        out.write(content);
+        write("\nendstream");
+        endObject();
+
+        int pageNumber = allocate();
+        beginObject(pageNumber);
+        write("<< /Type /Page /Parent " + PAGES + " 0 R /MediaBox ");
+        writeValue(mediaBox);
+        write(" /Resources " + RESOURCES + " 0 R /Contents " + contentNumber + " 0 R >>");
+        endObject();
+        pageNumbers.add(pageNumber);
+
+        out.flush();
+    }
+
+    /**
+     * 已写出的页数
+     */
+    int getPageCount() {
+        return pageNumbers.size();
+    }
+
+    /**
+     * 写出共用资源、页面树、目录、交叉引用表和trailer
+     */
+    public void finish() throws IOException {
+        beginObject(RESOURCES);
+        writeDirect(resources);
+        endObject();
+        while (!pending.isEmpty()) {
+            COSBase object = pending.poll();
+            beginObject(references.get(object));
+            if (object instanceof COSStream) {
+                writeStream((COSStream) object);
+            } else {
+                writeDirect(object);
+            }
+            endObject();
+        }
+
+        beginObject(PAGES);
+        StringBuilder kids = new StringBuilder("<< /Type /Pages /Kids [");
+        for (int i = 0; i < pageNumbers.size(); i++) {
+            kids.append(i == 0 ? "" : " ").append(pageNumbers.get(i)).append(" 0 R");
+        }
+        kids.append("] /Count ").append(pageNumbers.size()).append(" >>");
+        write(kids.toString());
+        endObject();
+
+        beginObject(CATALOG);
+        write("<< /Type /Catalog /Pages " + PAGES + " 0 R >>");
+        endObject();
+
+        long xref = out.getCount();
+        StringBuilder table = new StringBuilder("xref\n0 ").append(offsets.size()).append('\n');
+        table.append("0000000000 65535 f \n");
+        for (int i = 1; i < offsets.size(); i++) {
+            table.append(String.format("%010d 00000 n \n", offsets.get(i)));
+        }
+        String id = Hex.getString(digest.digest());
+        table.append("trailer\n<< /Size ").append(offsets.size()).append(" /Root ").append(CATALOG).append(" 0 R /ID [<")
+                .append(id).append("> <").append(id).append(">] >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        write(table.toString());
+        out.flush();
+    }
+
+    private int allocate() {
+        offsets.add(0L);
+        return offsets.size() - 1;
+    }
+
+    private void beginObject(int number) throws IOException {
+        offsets.set(number, out.getCount());
+        write(number + " 0 obj\n");
+    }
+
+    private void endObject() throws IOException {
+        write("\nendobj\n");
+    }
+
+    private void writeStream(COSStream stream) throws IOException {
+        byte[] data;
+        try (InputStream in = stream.createRawInputStream()) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                buffer.write(chunk, 0, n);
+            }
+            data = buffer.toByteArray();
+        }
+        write("<<");
+        for (Map.Entry<COSName, COSBase> entry : stream.entrySet()) {
+            if (!COSName.LENGTH.equals(entry.getKey())) {
+                write(" ");
+                entry.getKey().writePDF(out);
+                write(" ");
+                writeValue(entry.getValue());
+            }
+        }
+        write(" /Length " + data.length + " >>\nstream\n");
+        out.write(data);
+        write("\nendstream");
+    }
+
+    /**
+     * 写出对象本身，字典不转为间接对象
+     */
+    private void writeDirect(COSBase object) throws IOException {
+        if (object instanceof COSDictionary) {
+            write("<<");
+            for (Map.Entry<COSName, COSBase> entry : ((COSDictionary) object).entrySet()) {
+                write(" ");
+                entry.getKey().writePDF(out);
+                write(" ");
+                writeValue(entry.getValue());
+            }
+            write(" >>");
+        } else {
+            writeValue(object);
+        }
+    }
+
+    /**
+     * 写出对象的值：流和带/Type的字典作为间接对象引用，其他对象直接写出
+     */
+    private void writeValue(COSBase value) throws IOException {
+        if (value instanceof COSObject) {
+            writeValue(((COSObject) value).getObject());
+        } else if (value == null) {
+            write("null");
+        } else if (value instanceof COSStream
+                || value instanceof COSDictionary && ((COSDictionary) value).containsKey(COSName.TYPE)) {
+            write(reference(value) + " 0 R");
+        } else if (value instanceof COSDictionary) {
+            writeDirect(value);
+        } else if (value instanceof COSArray) {
+            write("[");
+            COSArray array = (COSArray) value;
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    write(" ");
+                }
+                writeValue(array.get(i));
+            }
+            write("]");
+        } else if (value instanceof COSString) {
+            COSWriter.writeString((COSString) value, out);
+        } else if (value instanceof COSName) {
+            ((COSName) value).writePDF(out);
+        } else if (value instanceof COSInteger) {
+            ((COSInteger) value).writePDF(out);
+        } else if (value instanceof COSFloat) {
+            ((COSFloat) value).writePDF(out);
+        } else if (value instanceof COSBoolean) {
+            ((COSBoolean) value).writePDF(out);
+        } else {
+            write("null");
+        }
+    }
+
+    private int reference(COSBase object) {
+        Integer number = references.get(object);
+        if (number == null) {
+            number = allocate();
+            references.put(object, number);
+            pending.add(object);
+        }
+        return number;
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 记录已写出字节数的输出流，用于计算交叉引用表中的对象位置
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
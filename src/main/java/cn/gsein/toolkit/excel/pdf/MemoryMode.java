@@ -0,0 +1,25 @@
+package cn.gsein.toolkit.excel.pdf;
+
+/**
+ * pdf文档在生成过程中的缓存方式，对应pdfbox的MemoryUsageSetting
+ * <p>
+ * 通过{@link Configuration#memoryMode}设置，为空时普通转换使用{@link #MAIN_MEMORY}，流式转换使用{@link #TEMP_FILE}。
+ * 使用临时文件时，文件建在{@link Configuration#tempDirectory}中，为空时使用系统临时目录。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public enum MemoryMode {
+    /**
+     * 只使用内存，不限制大小，忽略maxMainMemoryBytes和tempDirectory
+     */
+    MAIN_MEMORY,
+    /**
+     * 优先使用内存，超过maxMainMemoryBytes后写入tempDirectory中的临时文件
+     */
+    MIXED,
+    /**
+     * 只使用tempDirectory中的临时文件，忽略maxMainMemoryBytes
+     */
+    TEMP_FILE
+}
@@ -0,0 +1,19 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import java.io.IOException;
+
+/**
+ * 接收生成好的页面，页面按顺序传入
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+interface PageSink {
+
+    /**
+     * 加入一页
+     *
+     * @param content Flate压缩后的页面内容流，资源取自共用的资源字典
+     */
+    void addPage(byte[] content) throws IOException;
+}
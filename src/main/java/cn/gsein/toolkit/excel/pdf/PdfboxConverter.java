@@ -1,33 +1,68 @@
 package cn.gsein.toolkit.excel.pdf;
 
+import cn.gsein.toolkit.excel.jfr.ConversionEvents;
+import cn.gsein.toolkit.excel.pdf.stream.XlsStreamingReader;
+import cn.gsein.toolkit.excel.pdf.stream.XlsxStreamingReader;
 import cn.gsein.toolkit.excel.pdf.util.ExcelUtil;
-
 import cn.gsein.toolkit.excel.pdf.util.PdfUtil;
+import cn.gsein.toolkit.excel.util.BorderPath;
+import cn.gsein.toolkit.excel.util.CellIndex;
+import cn.gsein.toolkit.excel.util.FontRegistry;
+import cn.gsein.toolkit.excel.util.GridLayout;
+import cn.gsein.toolkit.excel.util.MergedRegionIndex;
+import cn.gsein.toolkit.excel.util.PageContentWriter;
+import cn.gsein.toolkit.excel.util.PageText;
+import cn.gsein.toolkit.excel.util.RenderStyle;
+import cn.gsein.toolkit.excel.util.RenderStyles;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.util.CellRangeAddress;
 
 import java.awt.*;
 import java.awt.Color;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.text.DecimalFormat;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class PdfboxConverter extends Converter {
 
     private static final String XLS = ".xls";
     private static final String XLSX = ".xlsx";
     private static final String XLSM = ".xlsm";
-    private static final String PERCENT = "%";
 
     private static final float POINTS_PER_MM = 2.8346457f;
     private static final float PAGE_WIDTH = 210 * POINTS_PER_MM;
@@ -39,17 +74,262 @@ public class PdfboxConverter extends Converter {
 
     @Override
     public void convert(InputStream excelInput, OutputStream pdfOutput) throws IOException {
+        ConversionRecorder recorder = new ConversionRecorder();
+        try {
+            OutputStream out = recorder.countOutput(pdfOutput);
+            convert(recorder.countInput(excelInput), out, recorder);
+            out.flush();
+        } catch (IOException | RuntimeException | Error e) {
+            if (listener != null) {
+                listener.onFailed(recorder.finish(), e);
+            }
+            throw e;
+        }
+        if (listener != null) {
+            listener.onConverted(recorder.finish());
+        }
+    }
+
+    private void convert(InputStream excelInput, OutputStream pdfOutput, ConversionRecorder recorder) throws IOException {
+        if (streaming) {
+            convertStreaming(excelInput, pdfOutput, recorder);
+            return;
+        }
         // 根据输入流创建工作簿对象，会自动识别xls和xlsx
+        long parseStart = System.nanoTime();
+        Object parseEvent = ConversionEvents.beginWorkbookParse();
         Workbook workbook = WorkbookFactory.create(excelInput);
-        PDDocument document = new PDDocument();
+        recorder.parsed(parseStart);
+        ConversionEvents.endWorkbookParse(parseEvent, recorder.getBytesIn(), workbook.getNumberOfSheets());
+        if (incrementalOutput) {
+            convertIncrementally(workbook, pdfOutput, recorder);
+            return;
+        }
+        if (parallelism > 1 && workbook.getNumberOfSheets() > 1) {
+            convertInParallel(workbook, pdfOutput, recorder);
+            return;
+        }
+        try (PDDocument document = new PDDocument(getMemoryUsageSetting(MemoryMode.MAIN_MEMORY))) {
+            // 所有sheet共用一个字体，文档中只嵌入一份字体子集
+            PDType0Font font = FontRegistry.loadFont(document, FontRegistry.DEFAULT_FONT);
+            RenderStyles styles = RenderStyles.of(workbook);
+
+            // 处理每个sheet
+            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                Sheet sheet = workbook.getSheetAt(i);
+                writeExcelSheetToPdfPages(sheet, document, font, styles, parallelism > 1, recorder.startSheet(i, sheet.getSheetName()));
+            }
+
+            save(document, pdfOutput, recorder);
+        }
+    }
+
+    /**
+     * 并行转换：在当前线程依次读取每个sheet，在线程池中生成各页的内容流，再按sheet顺序挂到最终文档上。
+     * 所有页面共用同一个字体和资源字典。文档ID由各页内容计算，相同输入的输出字节完全一致。
+     */
+    private void convertInParallel(Workbook workbook, OutputStream pdfOutput, ConversionRecorder recorder) throws IOException {
+        int sheetCount = workbook.getNumberOfSheets();
+        // 在当前线程解析全部样式，渲染线程中只读取
+        RenderStyles styles = RenderStyles.of(workbook);
+
+        ExecutorService pool = executor != null ? executor : Executors.newFixedThreadPool(Math.min(parallelism, sheetCount));
+        List<Future<List<byte[]>>> futures = new ArrayList<>(sheetCount);
+        try (PDDocument document = new PDDocument(getMemoryUsageSetting(MemoryMode.MAIN_MEMORY))) {
+            PDType0Font font = FontRegistry.loadFont(document, FontRegistry.DEFAULT_FONT);
+            PDFormXObject form = createSharedForm(document, font);
+            Map<PDFont, COSName> fontNames = getFontNames(form, font);
+            PDRectangle rect = getRect();
+            for (int i = 0; i < sheetCount; i++) {
+                Sheet sheet = workbook.getSheetAt(i);
+                ConversionRecorder.SheetRecorder sheetRecorder = recorder.startSheet(i, sheet.getSheetName());
+                SheetLayout layout = layout(sheet, styles);
+                if (layout == null) {
+                    continue;
+                }
+                sheetRecorder.laidOut();
+                sheetRecorder.addCells(countCells(sheet));
+                List<PageCells> pages = new ArrayList<>(layout.pages.size());
+                for (PDFPage pdfPage : layout.pages) {
+                    pages.add(readPage(layout, pdfPage));
+                }
+                futures.add(pool.submit(() -> renderSheet(layout.grid, pages, font, fontNames, sheetRecorder)));
+            }
+
+            MessageDigest digest = newMd5Digest();
+            for (Future<List<byte[]>> future : futures) {
+                for (byte[] content : getResult(future)) {
+                    digest.update(content);
+                    attachPage(document, rect, form.getResources(), content);
+                }
+            }
+            setDocumentId(document, digest.digest());
+            save(document, pdfOutput, recorder);
+        } finally {
+            for (Future<List<byte[]>> future : futures) {
+                future.cancel(true);
+            }
+            if (executor == null) {
+                pool.shutdownNow();
+            }
+        }
+    }
 
-        // 处理每个sheet
-        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-            writeExcelSheetToPdfPages(workbook.getSheetAt(i), document);
+    /**
+     * 边生成边输出：按页序生成内容流，每页完成后立即写入输出流。parallelism大于1时sheet内的页面并行生成
+     */
+    private void convertIncrementally(Workbook workbook, OutputStream pdfOutput, ConversionRecorder recorder) throws IOException {
+        RenderStyles styles = RenderStyles.of(workbook);
+        try (PDDocument document = new PDDocument(getMemoryUsageSetting(MemoryMode.MAIN_MEMORY))) {
+            // document只用来创建字体和共用资源，页面不加入其中
+            PDType0Font font = FontRegistry.loadFont(document, FontRegistry.DEFAULT_FONT);
+            PDFormXObject form = createSharedForm(document, font);
+            Map<PDFont, COSName> fontNames = getFontNames(form, font);
+            IncrementalPdfWriter writer = new IncrementalPdfWriter(pdfOutput, getRect(), form.getResources());
+            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                Sheet sheet = workbook.getSheetAt(i);
+                ConversionRecorder.SheetRecorder sheetRecorder = recorder.startSheet(i, sheet.getSheetName());
+                SheetLayout layout = layout(sheet, styles);
+                if (layout == null) {
+                    continue;
+                }
+                sheetRecorder.laidOut();
+                sheetRecorder.addCells(countCells(sheet));
+                if (parallelism > 1 && layout.pages.size() > 1) {
+                    writePagesInParallel(layout, font, fontNames, writer);
+                } else {
+                    for (PDFPage pdfPage : layout.pages) {
+                        writer.addPage(drawPageContent(layout.grid, readPage(layout, pdfPage), font, fontNames));
+                    }
+                }
+                sheetRecorder.finish(layout.pages.size());
+            }
+            // 所有页面都已生成，字体子集不再变化
+            long saveStart = System.nanoTime();
+            Object saveEvent = ConversionEvents.beginDocumentSave();
+            long bytesBefore = recorder.getBytesOut();
+            font.subset();
+            writer.finish();
+            recorder.saved(saveStart);
+            ConversionEvents.endDocumentSave(saveEvent, writer.getPageCount(), recorder.getBytesOut() - bytesBefore);
         }
+    }
 
+    /**
+     * 保存文档，记录保存耗时
+     */
+    private static void save(PDDocument document, OutputStream pdfOutput, ConversionRecorder recorder) throws IOException {
+        long saveStart = System.nanoTime();
+        Object saveEvent = ConversionEvents.beginDocumentSave();
+        long bytesBefore = recorder.getBytesOut();
         document.save(pdfOutput);
-        document.close();
+        recorder.saved(saveStart);
+        ConversionEvents.endDocumentSave(saveEvent, document.getNumberOfPages(), recorder.getBytesOut() - bytesBefore);
+    }
+
+    /**
+     * 依次生成单个sheet各页的内容流，各页的单元格已在当前线程读出
+     */
+    private static List<byte[]> renderSheet(GridLayout grid, List<PageCells> pages, PDType0Font font,
+                                            Map<PDFont, COSName> fontNames,
+                                            ConversionRecorder.SheetRecorder sheetRecorder) throws IOException {
+        List<byte[]> contents = new ArrayList<>(pages.size());
+        for (PageCells cells : pages) {
+            contents.add(drawPageContent(grid, cells, font, fontNames));
+        }
+        sheetRecorder.finish(contents.size());
+        return contents;
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按配置的缓存方式创建pdfbox的内存设置，没有配置时使用defaultMode
+     */
+    private MemoryUsageSetting getMemoryUsageSetting(MemoryMode defaultMode) {
+        MemoryMode mode = memoryMode != null ? memoryMode : defaultMode;
+        MemoryUsageSetting setting;
+        switch (mode) {
+            case MIXED:
+                setting = MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+                break;
+            case TEMP_FILE:
+                setting = MemoryUsageSetting.setupTempFileOnly();
+                break;
+            default:
+                return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+        return tempDirectory != null ? setting.setTempDir(tempDirectory) : setting;
+    }
+
+    /**
+     * 设置文档ID，避免pdfbox在保存时按当前时间生成
+     */
+    private static void setDocumentId(PDDocument document, byte[] id) {
+        COSArray idArray = new COSArray();
+        idArray.add(new COSString(id));
+        idArray.add(new COSString(id));
+        document.getDocument().getTrailer().setItem(COSName.ID, idArray);
+    }
+
+    /**
+     * 流式转换：输入先写入临时文件，再逐行读取sheet（xlsx使用SAX，xls使用记录事件）并按页输出，pdf内容流也缓存在临时文件中
+     */
+    private void convertStreaming(InputStream excelInput, OutputStream pdfOutput, ConversionRecorder recorder) throws IOException {
+        Path excelFile = Files.createTempFile("excel-", ".tmp");
+        try {
+            long parseStart = System.nanoTime();
+            Files.copy(excelInput, excelFile, StandardCopyOption.REPLACE_EXISTING);
+            recorder.parsed(parseStart);
+            try (PDDocument document = new PDDocument(getMemoryUsageSetting(MemoryMode.TEMP_FILE))) {
+                PDType0Font font = FontRegistry.loadFont(document, FontRegistry.DEFAULT_FONT);
+                FileMagic fileMagic = FileMagic.valueOf(excelFile.toFile());
+                if (fileMagic == FileMagic.OOXML || fileMagic == FileMagic.OLE2) {
+                    StreamingPdfWriter writer = new StreamingPdfWriter(document, font, getRect(), recorder);
+                    if (fileMagic == FileMagic.OOXML) {
+                        XlsxStreamingReader.read(excelFile.toFile(), writer);
+                    } else {
+                        XlsStreamingReader.read(excelFile.toFile(), writer);
+                    }
+                } else {
+                    // 其他格式暂不支持流式读取
+                    try (Workbook workbook = WorkbookFactory.create(excelFile.toFile(), null, true)) {
+                        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                            Sheet sheet = workbook.getSheetAt(i);
+                            writeExcelSheetToPdfPages(sheet, document, font, RenderStyles.of(workbook), false,
+                                    recorder.startSheet(i, sheet.getSheetName()));
+                        }
+                    }
+                }
+                save(document, pdfOutput, recorder);
+            }
+        } finally {
+            Files.deleteIfExists(excelFile);
+        }
     }
 
     private PDRectangle getRect() {
@@ -88,21 +368,29 @@ public class PdfboxConverter extends Converter {
     }
 
     public void writeExcelSheetToPdfPages(Sheet sheet, PDDocument document) throws IOException {
-        int maxCountIndex = ExcelUtil.getRowNumOfMaxColumnCount(sheet);
-        Row row0 = sheet.getRow(maxCountIndex);
-        if (row0 == null) {
+        writeExcelSheetToPdfPages(sheet, document, FontRegistry.loadFont(document, FontRegistry.DEFAULT_FONT),
+                RenderStyles.of(sheet.getWorkbook()), parallelism > 1,
+                new ConversionRecorder().startSheet(sheet.getWorkbook().getSheetIndex(sheet), sheet.getSheetName()));
+    }
+
+    private void writeExcelSheetToPdfPages(Sheet sheet, PDDocument document, PDType0Font font, RenderStyles styles,
+                                           boolean parallelPages, ConversionRecorder.SheetRecorder sheetRecorder) throws IOException {
+        SheetLayout layout = layout(sheet, styles);
+        if (layout == null) {
             return;
         }
-
-        int[] widths = ExcelUtil.getColumnWidths(sheet);
-        int[] heights = ExcelUtil.getRowHeights(sheet);
+        sheetRecorder.laidOut();
+        sheetRecorder.addCells(countCells(sheet));
         PDRectangle rect = getRect();
 
-        List<PDFPage> pdfPageList = getPdfPages(sheet, widths, heights, rect, row0);
-
-        // 从classpath中读取字体文件
-        PDType0Font font = loadFontFromClasspath(document);
-        for (PDFPage pdfPage : pdfPageList) {
+        if (parallelPages && layout.pages.size() > 1) {
+            PDFormXObject form = createSharedForm(document, font);
+            writePagesInParallel(layout, font, getFontNames(form, font),
+                    content -> attachPage(document, rect, form.getResources(), content));
+            sheetRecorder.finish(layout.pages.size());
+            return;
+        }
+        for (PDFPage pdfPage : layout.pages) {
             PDPage page = new PDPage(rect);
             document.addPage(page);
 
@@ -112,238 +400,375 @@ public class PdfboxConverter extends Converter {
             // 设置默认字体、字号、颜色
             setDefaultFontAndColor(stream, font);
 
-            for (int rowNum = pdfPage.getStartRowNum(); rowNum < pdfPage.getStartRowNum() + pdfPage.getRowCount(); rowNum++) {
-                Row row = sheet.getRow(rowNum);
-                if (row != null) {
-                    for (int cellNum = pdfPage.getStartColumnNum(); cellNum < pdfPage.getStartColumnNum() + pdfPage.getColumnCount(); cellNum++) {
-                        Cell excelCell = row.getCell(cellNum);
-                        // 获取单元格的值
-                        String value = getCellValue(excelCell);
+            drawPage(stream, layout.grid, readPage(layout, pdfPage), font);
 
-                        //设置单元格字体
-                        org.apache.poi.ss.usermodel.Font excelFont = getExcelFont(sheet.getWorkbook(), excelCell);
-
-//                        // 单独处理图片
-//                        List<PicturesInfo> infos = PoiExtend.getAllPictureInfos(sheet, rowNum, rowNum, cellNum, cellNum, false);
-//                        drawImage(document, stream, widths, heights, rowNum, cellNum, infos);
-
-                        // 判断是否有边框
-                        int border = getBorder(Objects.requireNonNull(excelCell));
-
-                        // 判断是否为合并单元格，分别处理
-                        if (isMergedRegion(sheet, rowNum, cellNum)) {
-                            int[] span = getMergedSpan(sheet, rowNum, cellNum);
-                            //忽略合并过的单元格
-                            if (span[0] == 1 && span[1] == 1) {
-                                continue;
-                            }
-                            border = getPdfCellBorderForMerged(sheet, rowNum, cellNum, span);
-                            //合并过的列直接跳过
-
-                            PdfUtil.drawRect(stream, widths, heights, pdfPage.getStartRowNum(), rowNum, pdfPage.getStartColumnNum(), cellNum, span[0], span[1], border);
-                            PdfUtil.drawString(font, stream, excelFont, widths, heights, pdfPage.getStartRowNum(), rowNum, pdfPage.getStartColumnNum(), cellNum, span[0], span[1], value);
-                            cellNum = cellNum + span[1] - 1;
-                        } else {
-                            // 非合并的单元格直接绘制
-                            PdfUtil.drawRect(stream, widths, heights, pdfPage.getStartRowNum(), rowNum, pdfPage.getStartColumnNum(), cellNum, 1, 1, border);
-                            PdfUtil.drawString(font, stream, excelFont, widths, heights, pdfPage.getStartRowNum(), rowNum, pdfPage.getStartColumnNum(), cellNum, 1, 1, value);
-                        }
-                    }
-                }
-            }
-
-            stream.stroke();
             stream.close();
         }
-
-
+        sheetRecorder.finish(layout.pages.size());
     }
 
-    private List<PDFPage> getPdfPages(Sheet sheet, int[] widths, int[] heights, PDRectangle rect, Row row0) {
-        int firstRowNum = sheet.getFirstRowNum();
-
-        short firstCellNum = row0.getFirstCellNum();
-
-
-        float accumulateWidth = 0;
-        float accumulateHeight = 0;
-        boolean createPdf = false;
+    /**
+     * sheet中物理存在的单元格数
+     */
+    private static long countCells(Sheet sheet) {
+        long count = 0;
+        for (Row row : sheet) {
+            count += row.getPhysicalNumberOfCells();
+        }
+        return count;
+    }
 
+    /**
+     * 计算sheet的列宽、行高、合并区域和分页，sheet为空时返回null
+     */
+    private SheetLayout layout(Sheet sheet, RenderStyles styles) {
+        Object layoutEvent = ConversionEvents.beginSheetLayout();
+        int maxCountIndex = ExcelUtil.getRowNumOfMaxColumnCount(sheet);
+        Row row0 = sheet.getRow(maxCountIndex);
+        if (row0 == null) {
+            return null;
+        }
 
-        float pageWidth = rect.getWidth() * 0.94f;
-        float pageHeight = rect.getHeight() - 30;
-        int pageNum = 0;
+        // 列宽从列数最多的行的第一列开始，行高从sheet的第一行开始
+        GridLayout grid = GridLayout.of(ExcelUtil.getColumnWidths(sheet), row0.getFirstCellNum(),
+                ExcelUtil.getRowHeights(sheet), sheet.getFirstRowNum());
+        List<PDFPage> pdfPageList = getPdfPages(grid, getRect());
+        List<CellRangeAddress> mergedRegions = sheet.getMergedRegions();
+        SheetLayout layout = new SheetLayout(sheet, grid, pdfPageList, MergedRegionIndex.of(mergedRegions),
+                CellIndex.of(sheet, mergedRegions), styles);
+        ConversionEvents.endSheetLayout(layoutEvent, sheet.getSheetName(), grid.getEndRow() - grid.getFirstRow(),
+                grid.getEndColumn() - grid.getFirstColumn(), mergedRegions.size(), pdfPageList.size());
+        return layout;
+    }
 
-        List<PDFPage> pdfPageList = new ArrayList<>();
-        int startRowNum = firstRowNum;
-        int startColumnNum = firstCellNum;
-
-        for (int i = firstRowNum; i < firstRowNum + heights.length; i++) {
-            if (createPdf) {
-                for (int j = firstCellNum; j < firstCellNum + widths.length; j++) {
-                    accumulateWidth += widths[j - firstCellNum] * 1.0f / 256 * 8;
-                    if (accumulateWidth > pageWidth) {
-                        PDFPage pdfPage = new PDFPage();
-                        pdfPage.setPageNum(pageNum++);
-                        pdfPage.setStartColumnNum(startColumnNum);
-                        pdfPage.setColumnCount(j - startColumnNum);
-                        pdfPage.setStartRowNum(startRowNum);
-                        pdfPage.setRowCount(i - startRowNum);
-                        pdfPageList.add(pdfPage);
-                        accumulateWidth = widths[j - firstCellNum] * 1.0f / 256 * 8;
-                        startColumnNum = j;
-                    }
+    /**
+     * 并行生成各页的内容流：每页的单元格在当前线程从sheet中读出，在线程池中排版并写入压缩后的字节数组，
+     * 再在当前线程按页序交给sink。同时在途的页数不超过parallelism的两倍。
+     */
+    private void writePagesInParallel(SheetLayout layout, PDType0Font font, Map<PDFont, COSName> fontNames,
+                                      PageSink sink) throws IOException {
+        ExecutorService pool = executor != null ? executor : Executors.newFixedThreadPool(Math.min(parallelism, layout.pages.size()));
+        Deque<Future<byte[]>> window = new ArrayDeque<>();
+        try {
+            Iterator<PDFPage> iterator = layout.pages.iterator();
+            while (iterator.hasNext() || !window.isEmpty()) {
+                while (iterator.hasNext() && window.size() < parallelism * 2) {
+                    PageCells cells = readPage(layout, iterator.next());
+                    window.add(pool.submit(() -> drawPageContent(layout.grid, cells, font, fontNames)));
                 }
-                createPdf = false;
-                startRowNum = i;
-                startColumnNum = 0;
-                accumulateWidth = 0;
+                sink.addPage(getResult(window.poll()));
+            }
+        } finally {
+            for (Future<byte[]> future : window) {
+                future.cancel(true);
             }
-            accumulateHeight += heights[i - firstRowNum] * 1.5f / 256 * 8;
-            if (accumulateHeight > pageHeight) {
-                createPdf = true;
-                accumulateHeight = heights[i - firstRowNum] * 1.5f / 256 * 8;
+            if (executor == null) {
+                pool.shutdownNow();
             }
         }
-        return pdfPageList;
-    }
-
-    private static int getPdfCellBorderForMerged(Sheet sheet, int rowNum, int cellNum, int[] span) {
-        int rowSpan = span[0];
-        int colSpan = span[1];
-        Cell leftTopCell = sheet.getRow(rowNum).getCell(cellNum);
-        Cell rightTopCell = sheet.getRow(rowNum).getCell(cellNum + colSpan - 1);
-        Cell leftBottomCell = sheet.getRow(rowNum + rowSpan - 1).getCell(cellNum);
-        Cell rightBottomCell = sheet.getRow(rowNum + rowSpan - 1).getCell(cellNum + colSpan - 1);
-        return getBorder(leftTopCell, rightTopCell, leftBottomCell, rightBottomCell);
     }
 
-
     /**
-     * 计算合并单元格合并的跨行跨列数
+     * 创建并行生成内容流时共用的表单对象，只用来持有所有页面共用的资源字典。
+     * <p>
+     * 资源字典和文档的待子集化字体集合都不是线程安全的，因此字体的登记只在这里、在当前线程完成一次：
+     * 设置一次字体，把字体加入资源字典并登记为待子集化字体，再由{@link #getFontNames}取出资源名称。
+     * 渲染线程只通过{@link PageContentWriter}按这个名称输出Tf指令，不调用setFont，不读写资源字典和文档；
+     * 各页的单元格也在当前线程读出（{@link #readPage}），渲染线程不访问POI的对象。
      */
-    private static int[] getMergedSpan(Sheet sheet, int row, int column) {
-        int sheetMergeCount = sheet.getNumMergedRegions();
-        int[] span = {1, 1};
-        for (int i = 0; i < sheetMergeCount; i++) {
-            CellRangeAddress range = sheet.getMergedRegion(i);
-            int firstColumn = range.getFirstColumn();
-            int lastColumn = range.getLastColumn();
-            int firstRow = range.getFirstRow();
-            int lastRow = range.getLastRow();
-            if (firstColumn == column && firstRow == row) {
-                span[0] = lastRow - firstRow + 1;
-                span[1] = lastColumn - firstColumn + 1;
-                break;
-            }
+    private static PDFormXObject createSharedForm(PDDocument document, PDType0Font font) throws IOException {
+        PDFormXObject form = new PDFormXObject(document);
+        form.setResources(new PDResources());
+        try (PDPageContentStream stream = new PDPageContentStream(document, form, new ByteArrayOutputStream())) {
+            stream.setFont(font, 14);
         }
-        return span;
+        return form;
     }
 
     /**
-     * 判断单元格是否是合并单元格
+     * 字体在共用资源字典中的名称，字体已由{@link #createSharedForm}登记，这里只取出已有的名称
      */
-    private static boolean isMergedRegion(Sheet sheet, int row, int column) {
-        int sheetMergeCount = sheet.getNumMergedRegions();
-        for (int i = 0; i < sheetMergeCount; i++) {
-            CellRangeAddress range = sheet.getMergedRegion(i);
-            int firstColumn = range.getFirstColumn();
-            int lastColumn = range.getLastColumn();
-            int firstRow = range.getFirstRow();
-            int lastRow = range.getLastRow();
-            if (row >= firstRow && row <= lastRow) {
-                if (column >= firstColumn && column <= lastColumn) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private static Map<PDFont, COSName> getFontNames(PDFormXObject form, PDType0Font font) {
+        return Collections.singletonMap(font, form.getResources().add(font));
     }
 
-
-    private static int getBorder(Cell leftTopCell, Cell rightTopCell, Cell leftBottomCell, Cell rightBottomCell) {
-        int border = 0;
-        if (leftTopCell.getCellStyle().getBorderTopEnum().getCode() > 0) {
-            border += 1;
-        }
-        if (rightBottomCell.getCellStyle().getBorderBottomEnum().getCode() > 0) {
-            border += 4;
-        }
-        if (leftBottomCell.getCellStyle().getBorderLeftEnum().getCode() > 0) {
-            border += 8;
-        }
-        if (rightTopCell.getCellStyle().getBorderRightEnum().getCode() > 0) {
-            border += 2;
+    /**
+     * 生成一页的内容流，返回Flate压缩后的字节。只读取cells和grid，可以在渲染线程中调用
+     */
+    private static byte[] drawPageContent(GridLayout grid, PageCells cells, PDType0Font font,
+                                          Map<PDFont, COSName> fontNames) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (PageContentWriter writer = new PageContentWriter(new DeflaterOutputStream(content), fontNames)) {
+            writer.setFont(font, 14);
+            writer.setStrokingColor(Color.BLACK);
+            Object pageEvent = ConversionEvents.beginPageRender();
+            PageText pageText = new PageText();
+            BorderPath borders = new BorderPath();
+            drawCells(grid, cells, font, pageText, borders);
+            pageText.write(writer);
+            borders.stroke(writer);
+            endPageRender(pageEvent, cells);
         }
-        return border;
+        return content.toByteArray();
     }
 
-    private static int getBorder(Cell excelCell) {
-        return getBorder(excelCell, excelCell, excelCell, excelCell);
+    /**
+     * 将生成好的内容流作为新页面加入文档
+     */
+    private static void attachPage(PDDocument document, PDRectangle rect, PDResources resources, byte[] content) throws IOException {
+        PDPage page = new PDPage(rect);
+        page.setResources(resources);
+        COSStream contents = document.getDocument().createCOSStream();
+        try (OutputStream out = contents.createRawOutputStream()) {
+            out.write(content);
+        }
+        contents.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        page.setContents(new PDStream(contents));
+        document.addPage(page);
     }
 
     /**
-     * 获取字体
+     * 绘制一页中的所有单元格
      */
-    private static Font getExcelFont(Workbook workbook, Cell cell) {
-        int fontIndex = cell.getCellStyle().getFontIndexAsInt();
-        return workbook.getFontAt(fontIndex);
+    private static void drawPage(PDPageContentStream stream, GridLayout grid, PageCells cells, PDType0Font font) throws IOException {
+        Object pageEvent = ConversionEvents.beginPageRender();
+        PageText pageText = new PageText();
+        BorderPath borders = new BorderPath();
+        drawCells(grid, cells, font, pageText, borders);
+        pageText.write(stream);
+        borders.stroke(stream);
+        endPageRender(pageEvent, cells);
     }
 
+    /**
+     * 读取一页中要绘制的单元格，只能在当前线程调用
+     */
+    private static PageCells readPage(SheetLayout layout, PDFPage pdfPage) {
+        Sheet sheet = layout.sheet;
+        MergedRegionIndex mergedRegions = layout.mergedRegions;
+        RenderStyles styles = layout.styles;
+        PageCells.Builder cells = new PageCells.Builder(sheet.getSheetName(), pdfPage);
+        int endColumn = pdfPage.getStartColumnNum() + pdfPage.getColumnCount();
+        for (int rowNum = pdfPage.getStartRowNum(); rowNum < pdfPage.getStartRowNum() + pdfPage.getRowCount(); rowNum++) {
+            // 只遍历物理单元格和合并区域的左上角单元格，不存在的单元格不产生输出
+            Row row = sheet.getRow(rowNum);
+            for (int cellNum : layout.cells.getColumns(rowNum, pdfPage.getStartColumnNum(), endColumn)) {
+                Cell excelCell = row == null ? null : row.getCell(cellNum);
+                RenderStyle style = styles.get(excelCell);
 
-    private static String getCellValue(Cell excelCell) {
-        String value = "";
-
-        if (excelCell != null) {
-            value = excelCell.toString().trim();
-            if (value.length() != 0) {
-                //获取excel单元格数据显示样式
-                String dataFormat = excelCell.getCellStyle().getDataFormatString();
-                //noinspection AlibabaUndefineMagicConstant
-                if (!"General".equals(dataFormat) && !"@".equals(dataFormat)) {
-                    try {
-                        String numStyle = getNumStyle(dataFormat);
-                        value = numFormat(numStyle, excelCell.getNumericCellValue());
-                    } catch (Exception ignored) {
+//                        // 单独处理图片
+//                        List<PicturesInfo> infos = PoiExtend.getAllPictureInfos(sheet, rowNum, rowNum, cellNum, cellNum, false);
+//                        drawImage(document, stream, widths, heights, rowNum, cellNum, infos);
 
+                // 判断是否为合并单元格，分别处理
+                if (mergedRegions.isMerged(rowNum, cellNum)) {
+                    int[] span = mergedRegions.getSpan(rowNum, cellNum);
+                    //忽略合并过的单元格
+                    if (span[0] == 1 && span[1] == 1) {
+                        continue;
                     }
+                    int border = getPdfCellBorderForMerged(sheet, styles, rowNum, cellNum, span);
+                    cells.add(rowNum, cellNum, span[0], span[1], border, style, getCellValue(excelCell, style));
+                } else {
+                    cells.add(rowNum, cellNum, 1, 1, style.getBorder(), style, getCellValue(excelCell, style));
                 }
             }
         }
-        return value;
+        return cells.build();
     }
 
     /**
-     * 获取excel单元格数据显示格式
+     * 把一页中的单元格排版后加入文字和边框集合
      */
-    private static String getNumStyle(String dataFormat) throws Exception {
-        if (dataFormat == null || dataFormat.length() == 0) {
-            throw new Exception("");
-        }
-        if (dataFormat.contains(PERCENT)) {
-            return dataFormat;
-        } else {
-            return dataFormat.substring(0, dataFormat.length() - 2);
+    private static void drawCells(GridLayout grid, PageCells cells, PDType0Font font, PageText pageText, BorderPath borders) {
+        int startRow = cells.page.getStartRowNum();
+        int startColumn = cells.page.getStartColumnNum();
+        for (int i = 0; i < cells.size(); i++) {
+            int rowNum = cells.getRow(i);
+            int cellNum = cells.getColumn(i);
+            int rowSpan = cells.getRowSpan(i);
+            int colSpan = cells.getColumnSpan(i);
+            PdfUtil.drawRect(borders, grid, startRow, rowNum, startColumn, cellNum, rowSpan, colSpan, cells.getBorder(i));
+            PdfUtil.drawString(font, pageText, cells.getFontSize(i), cells.isBold(i), grid, startRow, rowNum, startColumn, cellNum,
+                    rowSpan, colSpan, cells.getValue(i));
         }
+    }
 
+    private static void endPageRender(Object pageEvent, PageCells cells) {
+        PDFPage pdfPage = cells.page;
+        ConversionEvents.endPageRender(pageEvent, cells.sheetName, pdfPage.getStartRowNum(), pdfPage.getRowCount(),
+                pdfPage.getStartColumnNum(), pdfPage.getColumnCount());
     }
 
     /**
-     * 格式化数字
+     * 按页面大小分页：先按行拆分，每一组行再按列拆分，页序为先行后列
      */
-    private static String numFormat(String pattern, double num) {
-        DecimalFormat format = new DecimalFormat(pattern);
-        return format.format(num);
+    private List<PDFPage> getPdfPages(GridLayout grid, PDRectangle rect) {
+        int[] rowBreaks = grid.splitRows(rect.getHeight() - 30);
+        int[] columnBreaks = grid.splitColumns(rect.getWidth() * 0.94f);
+
+        List<PDFPage> pdfPageList = new ArrayList<>();
+        int pageNum = 0;
+        for (int i = 0; i < rowBreaks.length - 1; i++) {
+            for (int j = 0; j < columnBreaks.length - 1; j++) {
+                PDFPage pdfPage = new PDFPage();
+                pdfPage.setPageNum(pageNum++);
+                pdfPage.setStartColumnNum(columnBreaks[j]);
+                pdfPage.setColumnCount(columnBreaks[j + 1] - columnBreaks[j]);
+                pdfPage.setStartRowNum(rowBreaks[i]);
+                pdfPage.setRowCount(rowBreaks[i + 1] - rowBreaks[i]);
+                pdfPageList.add(pdfPage);
+            }
+        }
+        return pdfPageList;
     }
 
+    private static int getPdfCellBorderForMerged(Sheet sheet, RenderStyles styles, int rowNum, int cellNum, int[] span) {
+        int rowSpan = span[0];
+        int colSpan = span[1];
+        RenderStyle leftTop = styles.get(sheet.getRow(rowNum), cellNum);
+        RenderStyle rightTop = styles.get(sheet.getRow(rowNum), cellNum + colSpan - 1);
+        RenderStyle leftBottom = styles.get(sheet.getRow(rowNum + rowSpan - 1), cellNum);
+        RenderStyle rightBottom = styles.get(sheet.getRow(rowNum + rowSpan - 1), cellNum + colSpan - 1);
+        return RenderStyle.getMergedBorder(leftTop, rightTop, leftBottom, rightBottom);
+    }
 
-    private static PDType0Font loadFontFromClasspath(PDDocument document) throws IOException {
-        InputStream inputStream = PdfboxConverter.class.getClassLoader().getResourceAsStream("font/STXIHEI.TTF");
-        return PDType0Font.load(document, inputStream, true);
+    private static String getCellValue(Cell excelCell, RenderStyle style) {
+        if (excelCell == null) {
+            return "";
+        }
+        //按excel单元格数据显示样式格式化
+        return style.getFormatter().format(excelCell);
     }
 
     private static void setDefaultFontAndColor(PDPageContentStream stream, PDType0Font font) throws IOException {
         stream.setFont(font, 14);
         stream.setStrokingColor(Color.BLACK);
     }
+
+    /**
+     * sheet的分页结果及绘制所需的版面、合并区域和样式
+     */
+    private static final class SheetLayout {
+        private final Sheet sheet;
+        private final GridLayout grid;
+        private final List<PDFPage> pages;
+        private final MergedRegionIndex mergedRegions;
+        private final CellIndex cells;
+        private final RenderStyles styles;
+
+        private SheetLayout(Sheet sheet, GridLayout grid, List<PDFPage> pages, MergedRegionIndex mergedRegions,
+                            CellIndex cells, RenderStyles styles) {
+            this.sheet = sheet;
+            this.grid = grid;
+            this.pages = pages;
+            this.mergedRegions = mergedRegions;
+            this.cells = cells;
+            this.styles = styles;
+        }
+    }
+
+    /**
+     * 一页中要绘制的单元格：位置、跨度、边框、字号、粗细和格式化后的值
+     * <p>
+     * 在当前线程从sheet中读出，创建后不再修改，渲染线程只读取它，不访问POI的对象和单元格格式化器
+     */
+    private static final class PageCells {
+        /**
+         * 每个单元格在geometry中占的位置：行、列、跨行数、跨列数、边框
+         */
+        private static final int FIELDS = 5;
+
+        private final String sheetName;
+        private final PDFPage page;
+        private final int[] geometry;
+        private final float[] fontSizes;
+        private final boolean[] bold;
+        private final String[] values;
+
+        private PageCells(String sheetName, PDFPage page, int[] geometry, float[] fontSizes, boolean[] bold, String[] values) {
+            this.sheetName = sheetName;
+            this.page = page;
+            this.geometry = geometry;
+            this.fontSizes = fontSizes;
+            this.bold = bold;
+            this.values = values;
+        }
+
+        private int size() {
+            return values.length;
+        }
+
+        private int getRow(int index) {
+            return geometry[FIELDS * index];
+        }
+
+        private int getColumn(int index) {
+            return geometry[FIELDS * index + 1];
+        }
+
+        private int getRowSpan(int index) {
+            return geometry[FIELDS * index + 2];
+        }
+
+        private int getColumnSpan(int index) {
+            return geometry[FIELDS * index + 3];
+        }
+
+        private int getBorder(int index) {
+            return geometry[FIELDS * index + 4];
+        }
+
+        private float getFontSize(int index) {
+            return fontSizes[index];
+        }
+
+        private boolean isBold(int index) {
+            return bold[index];
+        }
+
+        private String getValue(int index) {
+            return values[index];
+        }
+
+        private static final class Builder {
+            private final String sheetName;
+            private final PDFPage page;
+            private int[] geometry = new int[FIELDS * 64];
+            private float[] fontSizes = new float[64];
+            private boolean[] bold = new boolean[64];
+            private String[] values = new String[64];
+            private int size;
+
+            private Builder(String sheetName, PDFPage page) {
+                this.sheetName = sheetName;
+                this.page = page;
+            }
+
+            private void add(int row, int column, int rowSpan, int columnSpan, int border, RenderStyle style, String value) {
+                if (size == values.length) {
+                    geometry = Arrays.copyOf(geometry, FIELDS * size * 2);
+                    fontSizes = Arrays.copyOf(fontSizes, size * 2);
+                    bold = Arrays.copyOf(bold, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                int offset = FIELDS * size;
+                geometry[offset] = row;
+                geometry[offset + 1] = column;
+                geometry[offset + 2] = rowSpan;
+                geometry[offset + 3] = columnSpan;
+                geometry[offset + 4] = border;
+                fontSizes[size] = style.getFontSize();
+                bold[size] = style.isBold();
+                values[size] = value;
+                size++;
+            }
+
+            private PageCells build() {
+                return new PageCells(sheetName, page, Arrays.copyOf(geometry, FIELDS * size), Arrays.copyOf(fontSizes, size),
+                        Arrays.copyOf(bold, size), Arrays.copyOf(values, size));
+            }
+        }
+    }
 }
+
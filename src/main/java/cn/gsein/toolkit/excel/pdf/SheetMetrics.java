@@ -0,0 +1,51 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 单个sheet的转换指标
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SheetMetrics {
+
+    /**
+     * sheet序号，从0开始
+     */
+    private final int sheetIndex;
+    /**
+     * sheet名称
+     */
+    private final String sheetName;
+    /**
+     * 计算列宽、行高、合并区域和分页的耗时（纳秒）。流式转换时版面与绘制交替进行，计入绘制耗时
+     */
+    private final long layoutNanos;
+    /**
+     * 绘制页面的耗时（纳秒），流式转换时包含读取行数据的时间
+     */
+    private final long drawNanos;
+    /**
+     * 物理存在的单元格数
+     */
+    private final long cellCount;
+    /**
+     * 生成的页数
+     */
+    private final int pageCount;
+    /**
+     * 绘制的图片数，PdfboxConverter目前不绘制图片，始终为0
+     */
+    private final int imageCount;
+    /**
+     * 转换该sheet期间堆内存占用相对开始时的最大增量（字节），在阶段边界采样得到，仅为估算；
+     * 并行转换时包含同时进行的其他sheet占用的内存
+     */
+    private final long peakMemoryBytes;
+}
@@ -0,0 +1,176 @@
+package cn.gsein.toolkit.excel.pdf;
+
+import cn.gsein.toolkit.excel.jfr.ConversionEvents;
+import cn.gsein.toolkit.excel.pdf.stream.RowHandler;
+import cn.gsein.toolkit.excel.pdf.stream.StreamingCell;
+import cn.gsein.toolkit.excel.pdf.stream.StreamingCellStyle;
+import cn.gsein.toolkit.excel.pdf.stream.StreamingRow;
+import cn.gsein.toolkit.excel.pdf.stream.StreamingSheet;
+import cn.gsein.toolkit.excel.pdf.util.PdfUtil;
+import cn.gsein.toolkit.excel.util.BorderPath;
+import cn.gsein.toolkit.excel.util.GridLayout;
+import cn.gsein.toolkit.excel.util.MergedRegionIndex;
+import cn.gsein.toolkit.excel.util.PageText;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式转换时的pdf写入器
+ * <p>
+ * 只缓存一页高度的行（行带），行带满后立即按列宽拆分并输出该行带的所有页面，然后丢弃这些行。
+ * 跨越行带的合并单元格在行带底部截断；合并单元格的边框取左上角单元格的边框。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-21
+ */
+class StreamingPdfWriter implements RowHandler {
+
+    private final PDDocument document;
+    private final PDType0Font font;
+    private final PDRectangle rect;
+    private final ConversionRecorder recorder;
+    private final float pageWidth;
+    private final float pageHeight;
+
+    private int[] widths;
+    /**
+     * 每页的起始列号，最后一个元素为列数
+     */
+    private int[] columnBreaks;
+    private MergedRegionIndex mergedRegions;
+
+    private final List<StreamingRow> band = new ArrayList<>();
+    private int bandStartRow;
+    private float bandHeight;
+
+    private StreamingSheet sheet;
+    private ConversionRecorder.SheetRecorder sheetRecorder;
+    private Object sheetEvent;
+    private int sheetStartPage;
+    private int sheetRows;
+    private long sheetCells;
+
+    StreamingPdfWriter(PDDocument document, PDType0Font font, PDRectangle rect, ConversionRecorder recorder) {
+        this.document = document;
+        this.font = font;
+        this.rect = rect;
+        this.recorder = recorder;
+        this.pageWidth = rect.getWidth() * 0.94f;
+        this.pageHeight = rect.getHeight() - 30;
+    }
+
+    @Override
+    public void startSheet(StreamingSheet sheet) {
+        this.sheet = sheet;
+        sheetRecorder = recorder.startSheet(sheet.getIndex(), sheet.getName());
+        sheetEvent = ConversionEvents.beginSheetParse();
+        sheetStartPage = document.getNumberOfPages();
+        sheetRows = 0;
+        sheetCells = 0;
+        widths = sheet.getColumnWidths();
+        columnBreaks = widths.length == 0 ? new int[]{0, 0} : GridLayout.of(widths, new int[0]).splitColumns(pageWidth);
+        mergedRegions = MergedRegionIndex.of(sheet.getMergedRegions());
+        band.clear();
+        bandHeight = 0;
+    }
+
+    @Override
+    public void row(StreamingRow row) throws IOException {
+        float height = row.getHeight() * 1.5f / 256 * 8;
+        if (!band.isEmpty() && bandHeight + height > pageHeight) {
+            flushBand();
+        }
+        if (band.isEmpty()) {
+            bandStartRow = row.getRowNum();
+        }
+        band.add(row);
+        bandHeight += height;
+        sheetRows++;
+        sheetCells += row.getCells().size();
+    }
+
+    @Override
+    public void endSheet() throws IOException {
+        if (!band.isEmpty()) {
+            flushBand();
+        }
+        int pages = document.getNumberOfPages() - sheetStartPage;
+        sheetRecorder.addCells(sheetCells);
+        sheetRecorder.finish(pages);
+        ConversionEvents.endSheetParse(sheetEvent, sheet.getIndex(), sheet.getName(), sheetRows, sheetCells, pages);
+    }
+
+    /**
+     * 按列宽拆分当前行带并输出页面
+     */
+    private void flushBand() throws IOException {
+        int[] heights = new int[band.get(band.size() - 1).getRowNum() - bandStartRow + 1];
+        for (StreamingRow row : band) {
+            heights[row.getRowNum() - bandStartRow] = row.getHeight();
+        }
+
+        GridLayout grid = GridLayout.of(widths, 0, heights, bandStartRow);
+        for (int i = 0; i < columnBreaks.length - 1; i++) {
+            writePage(grid, columnBreaks[i], columnBreaks[i + 1]);
+        }
+
+        band.clear();
+        bandHeight = 0;
+    }
+
+    private void writePage(GridLayout grid, int startColumn, int endColumn) throws IOException {
+        Object pageEvent = ConversionEvents.beginPageRender();
+        PDPage page = new PDPage(rect);
+        document.addPage(page);
+
+        try (PDPageContentStream stream = new PDPageContentStream(document, page)) {
+            // 设置默认字体、字号、颜色
+            stream.setFont(font, 14);
+            stream.setStrokingColor(Color.BLACK);
+
+            PageText pageText = new PageText();
+            BorderPath borders = new BorderPath();
+            for (StreamingRow row : band) {
+                int rowNum = row.getRowNum();
+                for (StreamingCell cell : row.getCells()) {
+                    int cellNum = cell.getColumn();
+                    if (cellNum < startColumn) {
+                        continue;
+                    }
+                    if (cellNum >= endColumn) {
+                        break;
+                    }
+
+                    int rowSpan = 1;
+                    int colSpan = 1;
+                    CellRangeAddress region = mergedRegions.getRegion(rowNum, cellNum);
+                    if (region != null) {
+                        //忽略合并过的单元格
+                        if (region.getFirstRow() != rowNum || region.getFirstColumn() != cellNum) {
+                            continue;
+                        }
+                        rowSpan = Math.min(region.getLastRow() - rowNum + 1, grid.getEndRow() - rowNum);
+                        colSpan = Math.min(region.getLastColumn() - cellNum + 1, endColumn - cellNum);
+                    }
+
+                    StreamingCellStyle style = cell.getStyle();
+                    PdfUtil.drawRect(borders, grid, bandStartRow, rowNum, startColumn, cellNum, rowSpan, colSpan, style.getBorder());
+                    PdfUtil.drawString(font, pageText, style.getFontSize(), style.isBold(), grid, bandStartRow, rowNum, startColumn, cellNum, rowSpan, colSpan, cell.getValue());
+                }
+            }
+            pageText.write(stream);
+            borders.stroke(stream);
+        }
+        ConversionEvents.endPageRender(pageEvent, sheet.getName(), bandStartRow, grid.getEndRow() - bandStartRow,
+                startColumn, endColumn - startColumn);
+    }
+}
@@ -0,0 +1,27 @@
+package cn.gsein.toolkit.excel.pdf.stream;
+
+import java.io.IOException;
+
+/**
+ * 流式读取excel时的行回调，行按行号升序到达
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-21
+ */
+public interface RowHandler {
+
+    /**
+     * 开始处理一个sheet
+     */
+    void startSheet(StreamingSheet sheet) throws IOException;
+
+    /**
+     * 处理一行，回调返回后读取器不再持有该行
+     */
+    void row(StreamingRow row) throws IOException;
+
+    /**
+     * 当前sheet处理结束
+     */
+    void endSheet() throws IOException;
+}
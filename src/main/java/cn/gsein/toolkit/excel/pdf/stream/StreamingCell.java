@@ -0,0 +1,28 @@
+package cn.gsein.toolkit.excel.pdf.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 流式读取得到的单元格
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-21
+ */
+@Data
+@AllArgsConstructor
+public class StreamingCell {
+
+    /**
+     * 列号，从0开始
+     */
+    private int column;
+    /**
+     * 格式化后的显示值
+     */
+    private String value;
+    /**
+     * 单元格样式
+     */
+    private StreamingCellStyle style;
+}
@@ -0,0 +1,63 @@
+package cn.gsein.toolkit.excel.pdf.stream;
+
+import cn.gsein.toolkit.excel.util.CellValueFormatter;
+import lombok.Getter;
+
+/**
+ * 流式读取时单元格样式的解析结果，每个样式下标只解析一次
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-21
+ */
+@Getter
+public class StreamingCellStyle {
+
+    /**
+     * 边框，上1 右2 下4 左8
+     */
+    private final int border;
+    /**
+     * 字号（磅）
+     */
+    private final float fontSize;
+    /**
+     * 是否粗体
+     */
+    private final boolean bold;
+
+    private final CellValueFormatter formatter;
+
+    public StreamingCellStyle(int border, float fontSize, boolean bold, int formatIndex, String formatString) {
+        this.border = border;
+        this.fontSize = fontSize;
+        this.bold = bold;
+        this.formatter = CellValueFormatter.of(formatIndex, formatString);
+    }
+
+    /**
+     * 由四边的边框样式代码计算边框，代码大于0表示有边框
+     */
+    public static int toBorder(int top, int right, int bottom, int left) {
+        int border = 0;
+        if (top > 0) {
+            border += 1;
+        }
+        if (bottom > 0) {
+            border += 4;
+        }
+        if (left > 0) {
+            border += 8;
+        }
+        if (right > 0) {
+            border += 2;
+        }
+        return border;
+    }
+
+    /**
+     * 格式化数值单元格，与转换器中getCellValue的结果保持一致
+     */
+    public String formatNumber(double value) {
+        return formatter.formatValue(value);
+    }
+}
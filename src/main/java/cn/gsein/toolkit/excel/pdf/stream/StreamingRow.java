@@ -0,0 +1,29 @@
+package cn.gsein.toolkit.excel.pdf.stream;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式读取得到的行，只包含物理存在的单元格
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-21
+ */
+@Data
+public class StreamingRow {
+
+    /**
+     * 行号，从0开始
+     */
+    private final int rowNum;
+    /**
+     * 行高，单位为1/20磅（与Row.getHeight()一致）
+     */
+    private final short height;
+    /**
+     * 按列号升序排列的单元格
+     */
+    private final List<StreamingCell> cells = new ArrayList<>();
+}
@@ -0,0 +1,37 @@
+package cn.gsein.toolkit.excel.pdf.stream;
+
+import lombok.Data;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.List;
+
+/**
+ * 流式读取的sheet信息，在该sheet的行数据到达之前确定
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-21
+ */
+@Data
+public class StreamingSheet {
+
+    /**
+     * sheet序号，从0开始
+     */
+    private final int index;
+    /**
+     * sheet名称
+     */
+    private final String name;
+    /**
+     * 每列宽度，单位为1/256字符宽度（与Sheet.getColumnWidth()一致），下标为列号
+     */
+    private final int[] columnWidths;
+    /**
+     * 默认行高，单位为1/20磅
+     */
+    private final short defaultRowHeight;
+    /**
+     * 合并区域
+     */
+    private final List<CellRangeAddress> mergedRegions;
+}
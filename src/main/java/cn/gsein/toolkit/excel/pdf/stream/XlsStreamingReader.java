@@ -0,0 +1,431 @@
+package cn.gsein.toolkit.excel.pdf.stream;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.ColumnInfoRecord;
+import org.apache.poi.hssf.record.DBCellRecord;
+import org.apache.poi.hssf.record.DefaultColWidthRecord;
+import org.apache.poi.hssf.record.DefaultRowHeightRecord;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FontRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MergeCellsRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基于HSSF记录事件模型的xls流式读取器，回调方式与{@link XlsxStreamingReader}一致
+ * <p>
+ * 工作簿记录流读取两遍：第一遍收集字体、XF样式、格式、共享字符串以及各sheet的列宽、默认行高和合并区域
+ * （MERGEDCELLS记录位于单元格记录之后），第二遍按行块（ROW记录 + 单元格记录 + DBCELL）逐行回调。
+ * 不会创建HSSFWorkbook，内存中只保留一个行块。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-22
+ */
+public final class XlsStreamingReader {
+    private XlsStreamingReader() {
+    }
+
+    /**
+     * 默认列宽（字符数），与HSSFSheet一致
+     */
+    private static final int DEFAULT_COLUMN_WIDTH = 8;
+
+    /**
+     * 默认行高（1/20磅），与HSSFSheet一致
+     */
+    private static final short DEFAULT_ROW_HEIGHT = 0xFF;
+
+    /**
+     * 公式缓存结果的类型，与FormulaRecord.getCachedResultType()的取值一致
+     */
+    private static final int CACHED_NUMERIC = 0;
+    private static final int CACHED_BOOLEAN = 4;
+    private static final int CACHED_ERROR = 5;
+
+    /**
+     * 读取xls文件，依次回调每个sheet的每一行
+     */
+    public static void read(File file, RowHandler handler) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            HSSFEventFactory factory = new HSSFEventFactory();
+
+            // 第一遍：工作簿全局信息和sheet信息
+            WorkbookInfoListener infoListener = new WorkbookInfoListener();
+            FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(infoListener);
+            HSSFRequest infoRequest = new HSSFRequest();
+            infoRequest.addListenerForAllRecords(formatListener);
+            factory.processWorkbookEvents(infoRequest, fs);
+
+            // 第二遍：逐行回调
+            SheetDataListener dataListener = new SheetDataListener(infoListener, new StyleResolver(infoListener, formatListener), handler);
+            HSSFRequest dataRequest = new HSSFRequest();
+            dataRequest.addListenerForAllRecords(dataListener);
+            try {
+                factory.processWorkbookEvents(dataRequest, fs);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * XF样式下标到解析结果的缓存
+     */
+    private static final class StyleResolver {
+        private final WorkbookInfoListener info;
+        private final FormatTrackingHSSFListener formats;
+        private final StreamingCellStyle[] resolved;
+
+        private StyleResolver(WorkbookInfoListener info, FormatTrackingHSSFListener formats) {
+            this.info = info;
+            this.formats = formats;
+            this.resolved = new StreamingCellStyle[Math.max(info.xfRecords.size(), 1)];
+        }
+
+        private StreamingCellStyle get(int xfIndex) {
+            if (xfIndex < 0 || xfIndex >= resolved.length) {
+                xfIndex = 0;
+            }
+            StreamingCellStyle style = resolved[xfIndex];
+            if (style == null) {
+                style = resolve(xfIndex);
+                resolved[xfIndex] = style;
+            }
+            return style;
+        }
+
+        private StreamingCellStyle resolve(int xfIndex) {
+            if (info.xfRecords.isEmpty()) {
+                return new StreamingCellStyle(0, 10, false, 0, "General");
+            }
+            ExtendedFormatRecord xf = info.xfRecords.get(xfIndex);
+            int border = StreamingCellStyle.toBorder(xf.getBorderTop(), xf.getBorderRight(), xf.getBorderBottom(), xf.getBorderLeft());
+
+            // 与InternalWorkbook一致，字体下标4不存在
+            int fontIndex = xf.getFontIndex();
+            if (fontIndex > 4) {
+                fontIndex -= 1;
+            }
+            float fontSize = 10;
+            boolean bold = false;
+            if (fontIndex < info.fontRecords.size()) {
+                FontRecord font = info.fontRecords.get(fontIndex);
+                fontSize = font.getFontHeight() / 20;
+                bold = font.getBoldWeight() >= 700;
+            }
+
+            int formatIndex = xf.getFormatIndex();
+            return new StreamingCellStyle(border, fontSize, bold, formatIndex, formats.getFormatString(formatIndex));
+        }
+    }
+
+    /**
+     * sheet信息，第一遍解析时收集
+     */
+    private static final class SheetInfo {
+        private String name;
+        private int defaultColumnWidth = DEFAULT_COLUMN_WIDTH * 256;
+        private short defaultRowHeight = DEFAULT_ROW_HEIGHT;
+        private final List<ColumnInfoRecord> columnInfos = new ArrayList<>();
+        private final List<CellRangeAddress> mergedRegions = new ArrayList<>();
+        private int lastColumn = -1;
+
+        private StreamingSheet toSheet(int index) {
+            for (CellRangeAddress region : mergedRegions) {
+                lastColumn = Math.max(lastColumn, region.getLastColumn());
+            }
+            int[] columnWidths = new int[lastColumn + 1];
+            Arrays.fill(columnWidths, defaultColumnWidth);
+            for (ColumnInfoRecord columnInfo : columnInfos) {
+                for (int i = columnInfo.getFirstColumn(); i <= Math.min(columnInfo.getLastColumn(), lastColumn); i++) {
+                    columnWidths[i] = columnInfo.getColumnWidth();
+                }
+            }
+            return new StreamingSheet(index, name, columnWidths, defaultRowHeight, mergedRegions);
+        }
+    }
+
+    /**
+     * 第一遍解析：全局记录和每个sheet的布局信息
+     */
+    private static final class WorkbookInfoListener implements HSSFListener {
+        private final List<FontRecord> fontRecords = new ArrayList<>();
+        private final List<ExtendedFormatRecord> xfRecords = new ArrayList<>();
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        private final List<SheetInfo> sheets = new ArrayList<>();
+        private SSTRecord sst;
+
+        private int depth;
+        private SheetInfo current;
+
+        @Override
+        public void processRecord(Record record) {
+            switch (record.getSid()) {
+                case BOFRecord.sid:
+                    depth++;
+                    BOFRecord bof = (BOFRecord) record;
+                    if (depth == 1 && bof.getType() != BOFRecord.TYPE_WORKBOOK) {
+                        if (sheets.isEmpty()) {
+                            orderBoundSheets();
+                        }
+                        current = new SheetInfo();
+                        int index = sheets.size();
+                        current.name = index < boundSheets.size() ? boundSheets.get(index).getSheetname() : "Sheet" + (index + 1);
+                        sheets.add(current);
+                    }
+                    break;
+                case EOFRecord.sid:
+                    depth--;
+                    break;
+                case FontRecord.sid:
+                    fontRecords.add((FontRecord) record);
+                    break;
+                case ExtendedFormatRecord.sid:
+                    xfRecords.add((ExtendedFormatRecord) record);
+                    break;
+                case BoundSheetRecord.sid:
+                    boundSheets.add((BoundSheetRecord) record);
+                    break;
+                case SSTRecord.sid:
+                    sst = (SSTRecord) record;
+                    break;
+                case DefaultColWidthRecord.sid:
+                    if (current != null && depth == 1) {
+                        current.defaultColumnWidth = ((DefaultColWidthRecord) record).getColWidth() * 256;
+                    }
+                    break;
+                case DefaultRowHeightRecord.sid:
+                    if (current != null && depth == 1) {
+                        current.defaultRowHeight = ((DefaultRowHeightRecord) record).getRowHeight();
+                    }
+                    break;
+                case ColumnInfoRecord.sid:
+                    if (current != null && depth == 1) {
+                        current.columnInfos.add((ColumnInfoRecord) record);
+                    }
+                    break;
+                case DimensionsRecord.sid:
+                    if (current != null && depth == 1) {
+                        current.lastColumn = Math.max(current.lastColumn, ((DimensionsRecord) record).getLastCol() - 1);
+                    }
+                    break;
+                case MergeCellsRecord.sid:
+                    if (current != null && depth == 1) {
+                        MergeCellsRecord merges = (MergeCellsRecord) record;
+                        for (int i = 0; i < merges.getNumAreas(); i++) {
+                            current.mergedRegions.add(merges.getAreaAt(i));
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void orderBoundSheets() {
+            BoundSheetRecord[] ordered = BoundSheetRecord.orderByBofPosition(boundSheets);
+            boundSheets.clear();
+            boundSheets.addAll(Arrays.asList(ordered));
+        }
+    }
+
+    /**
+     * 第二遍解析：按行块收集单元格并逐行回调
+     */
+    private static final class SheetDataListener implements HSSFListener {
+        private final WorkbookInfoListener info;
+        private final StyleResolver styles;
+        private final RowHandler handler;
+
+        private int depth;
+        private int sheetIndex = -1;
+        private boolean inWorksheet;
+        private short defaultRowHeight;
+
+        /**
+         * 当前行块中的行，按行号排序
+         */
+        private final Map<Integer, StreamingRow> block = new TreeMap<>();
+        private boolean blockHasCells;
+
+        /**
+         * 结果为字符串的公式，值在随后的STRING记录中
+         */
+        private FormulaRecord pendingFormula;
+
+        private SheetDataListener(WorkbookInfoListener info, StyleResolver styles, RowHandler handler) {
+            this.info = info;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            try {
+                doProcessRecord(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void doProcessRecord(Record record) throws IOException {
+            short sid = record.getSid();
+            if (sid == BOFRecord.sid) {
+                depth++;
+                BOFRecord bof = (BOFRecord) record;
+                if (depth == 1 && bof.getType() != BOFRecord.TYPE_WORKBOOK) {
+                    sheetIndex++;
+                    inWorksheet = bof.getType() == BOFRecord.TYPE_WORKSHEET;
+                    if (inWorksheet) {
+                        StreamingSheet sheet = info.sheets.get(sheetIndex).toSheet(sheetIndex);
+                        defaultRowHeight = sheet.getDefaultRowHeight();
+                        handler.startSheet(sheet);
+                    }
+                }
+                return;
+            }
+            if (sid == EOFRecord.sid) {
+                if (depth == 1 && inWorksheet) {
+                    flushBlock();
+                    handler.endSheet();
+                    inWorksheet = false;
+                }
+                depth--;
+                return;
+            }
+            if (!inWorksheet || depth != 1) {
+                return;
+            }
+
+            switch (sid) {
+                case RowRecord.sid:
+                    if (blockHasCells) {
+                        flushBlock();
+                    }
+                    RowRecord rowRecord = (RowRecord) record;
+                    block.put(rowRecord.getRowNumber(), new StreamingRow(rowRecord.getRowNumber(), rowHeight(rowRecord.getHeight())));
+                    break;
+                case DBCellRecord.sid:
+                    flushBlock();
+                    break;
+                case NumberRecord.sid:
+                    NumberRecord number = (NumberRecord) record;
+                    addCell(number.getRow(), number.getColumn(), number.getXFIndex(), numberValue(number.getXFIndex(), number.getValue()));
+                    break;
+                case LabelSSTRecord.sid:
+                    LabelSSTRecord label = (LabelSSTRecord) record;
+                    addCell(label.getRow(), label.getColumn(), label.getXFIndex(), info.sst.getString(label.getSSTIndex()).getString());
+                    break;
+                case LabelRecord.sid:
+                    LabelRecord oldLabel = (LabelRecord) record;
+                    addCell(oldLabel.getRow(), oldLabel.getColumn(), oldLabel.getXFIndex(), oldLabel.getValue());
+                    break;
+                case BoolErrRecord.sid:
+                    BoolErrRecord boolErr = (BoolErrRecord) record;
+                    String boolErrValue = boolErr.isBoolean() ? (boolErr.getBooleanValue() ? "TRUE" : "FALSE")
+                            : FormulaError.forInt(boolErr.getErrorValue()).getString();
+                    addCell(boolErr.getRow(), boolErr.getColumn(), boolErr.getXFIndex(), boolErrValue);
+                    break;
+                case FormulaRecord.sid:
+                    FormulaRecord formula = (FormulaRecord) record;
+                    if (formula.hasCachedResultString()) {
+                        pendingFormula = formula;
+                    } else {
+                        addCell(formula.getRow(), formula.getColumn(), formula.getXFIndex(), formulaValue(formula));
+                    }
+                    break;
+                case StringRecord.sid:
+                    if (pendingFormula != null) {
+                        addCell(pendingFormula.getRow(), pendingFormula.getColumn(), pendingFormula.getXFIndex(), ((StringRecord) record).getString());
+                        pendingFormula = null;
+                    }
+                    break;
+                case BlankRecord.sid:
+                    BlankRecord blank = (BlankRecord) record;
+                    addCell(blank.getRow(), blank.getColumn(), blank.getXFIndex(), "");
+                    break;
+                case MulBlankRecord.sid:
+                    MulBlankRecord mulBlank = (MulBlankRecord) record;
+                    for (int i = 0; i < mulBlank.getNumColumns(); i++) {
+                        addCell(mulBlank.getRow(), mulBlank.getFirstColumn() + i, mulBlank.getXFAt(i), "");
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void addCell(int rowNum, int column, int xfIndex, String value) {
+            StreamingRow row = block.get(rowNum);
+            if (row == null) {
+                row = new StreamingRow(rowNum, defaultRowHeight);
+                block.put(rowNum, row);
+            }
+            row.getCells().add(new StreamingCell(column, value.trim(), styles.get(xfIndex)));
+            blockHasCells = true;
+        }
+
+        private void flushBlock() throws IOException {
+            for (StreamingRow row : block.values()) {
+                handler.row(row);
+            }
+            block.clear();
+            blockHasCells = false;
+        }
+
+        /**
+         * 与HSSFRow.getHeight()一致，最高位表示使用默认行高
+         */
+        private short rowHeight(short height) {
+            if ((height & 0x8000) != 0) {
+                return defaultRowHeight;
+            }
+            return (short) (height & 0x7FFF);
+        }
+
+        private String numberValue(int xfIndex, double value) {
+            return styles.get(xfIndex).formatNumber(value);
+        }
+
+        private String formulaValue(FormulaRecord formula) {
+            switch (formula.getCachedResultType()) {
+                case CACHED_NUMERIC:
+                    return numberValue(formula.getXFIndex(), formula.getValue());
+                case CACHED_BOOLEAN:
+                    return formula.getCachedBooleanValue() ? "TRUE" : "FALSE";
+                case CACHED_ERROR:
+                    return FormulaError.forInt(formula.getCachedErrorValue()).getString();
+                default:
+                    return "";
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package cn.gsein.toolkit.excel.pdf.stream;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于XSSF事件模型（SAX）的xlsx流式读取器
+ * <p>
+ * 每个sheet解析两遍：第一遍只收集列宽、默认行高和合并区域（mergeCells位于sheetData之后），
+ * 第二遍逐行回调。内存占用只与共享字符串表和样式表有关，与sheet的行数无关。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-21
+ */
+public final class XlsxStreamingReader {
+    private XlsxStreamingReader() {
+    }
+
+    /**
+     * 默认列宽（字符数），与XSSFSheet一致
+     */
+    private static final int DEFAULT_COLUMN_WIDTH = 8;
+
+    /**
+     * 默认行高（磅），与XSSFSheet一致
+     */
+    private static final float DEFAULT_ROW_HEIGHT = 15f;
+
+    /**
+     * 读取xlsx文件，依次回调每个sheet的每一行
+     */
+    public static void read(File file, RowHandler handler) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException(e);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StyleResolver styles = new StyleResolver(reader.getStylesTable());
+
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            int index = 0;
+            while (iterator.hasNext()) {
+                iterator.next().close();
+                PackagePart part = iterator.getSheetPart();
+
+                // 第一遍：sheet信息
+                SheetInfoHandler infoHandler = new SheetInfoHandler();
+                parse(part, infoHandler);
+                handler.startSheet(infoHandler.toSheet(index++, iterator.getSheetName()));
+
+                // 第二遍：逐行回调
+                parse(part, new SheetDataHandler(strings, styles, infoHandler.defaultRowHeight, handler));
+                handler.endSheet();
+            }
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException(e);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private static void parse(PackagePart part, DefaultHandler contentHandler) throws IOException, SAXException {
+        XMLReader xmlReader;
+        try {
+            xmlReader = XMLHelper.newXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+        xmlReader.setContentHandler(contentHandler);
+        try (InputStream in = part.getInputStream()) {
+            xmlReader.parse(new InputSource(in));
+        } catch (RowHandlerException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 从单元格引用（如AB12）中解析列号，不创建中间对象
+     */
+    private static int parseColumn(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * 样式下标到解析结果的缓存
+     */
+    private static final class StyleResolver {
+        private final StylesTable stylesTable;
+        private final StreamingCellStyle[] resolved;
+
+        private StyleResolver(StylesTable stylesTable) {
+            this.stylesTable = stylesTable;
+            this.resolved = new StreamingCellStyle[Math.max(stylesTable.getNumCellStyles(), 1)];
+        }
+
+        private StreamingCellStyle get(int index) {
+            if (index < 0 || index >= resolved.length) {
+                index = 0;
+            }
+            StreamingCellStyle style = resolved[index];
+            if (style == null) {
+                style = resolve(stylesTable.getStyleAt(index));
+                resolved[index] = style;
+            }
+            return style;
+        }
+
+        private static StreamingCellStyle resolve(XSSFCellStyle cellStyle) {
+            if (cellStyle == null) {
+                return new StreamingCellStyle(0, 11, false, 0, "General");
+            }
+            int border = StreamingCellStyle.toBorder(cellStyle.getBorderTop().getCode(), cellStyle.getBorderRight().getCode(),
+                    cellStyle.getBorderBottom().getCode(), cellStyle.getBorderLeft().getCode());
+            XSSFFont font = cellStyle.getFont();
+            return new StreamingCellStyle(border, font.getFontHeightInPoints(), font.getBold(),
+                    cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+        }
+    }
+
+    /**
+     * 第一遍解析：列宽、默认行高、合并区域
+     */
+    private static final class SheetInfoHandler extends DefaultHandler {
+        private int defaultColumnWidth = DEFAULT_COLUMN_WIDTH * 256;
+        private short defaultRowHeight = (short) (DEFAULT_ROW_HEIGHT * 20);
+        private final List<int[]> cols = new ArrayList<>();
+        private final List<CellRangeAddress> mergedRegions = new ArrayList<>();
+        private int lastColumn = -1;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "dimension":
+                    String ref = attributes.getValue("ref");
+                    if (ref != null) {
+                        lastColumn = Math.max(lastColumn, parseColumn(ref.substring(ref.indexOf(':') + 1)));
+                    }
+                    break;
+                case "sheetFormatPr":
+                    String baseColWidth = attributes.getValue("baseColWidth");
+                    if (baseColWidth != null) {
+                        defaultColumnWidth = Integer.parseInt(baseColWidth) * 256;
+                    }
+                    String defaultRowHeightValue = attributes.getValue("defaultRowHeight");
+                    if (defaultRowHeightValue != null) {
+                        defaultRowHeight = (short) (Double.parseDouble(defaultRowHeightValue) * 20);
+                    }
+                    break;
+                case "col":
+                    String width = attributes.getValue("width");
+                    if (width != null) {
+                        int min = Integer.parseInt(attributes.getValue("min")) - 1;
+                        int max = Integer.parseInt(attributes.getValue("max")) - 1;
+                        cols.add(new int[]{min, max, (int) (Double.parseDouble(width) * 256)});
+                    }
+                    break;
+                case "c":
+                    String cellRef = attributes.getValue("r");
+                    if (cellRef != null) {
+                        lastColumn = Math.max(lastColumn, parseColumn(cellRef));
+                    }
+                    break;
+                case "mergeCell":
+                    mergedRegions.add(CellRangeAddress.valueOf(attributes.getValue("ref")));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private StreamingSheet toSheet(int index, String name) {
+            for (CellRangeAddress region : mergedRegions) {
+                lastColumn = Math.max(lastColumn, region.getLastColumn());
+            }
+            int[] columnWidths = new int[lastColumn + 1];
+            Arrays.fill(columnWidths, defaultColumnWidth);
+            for (int[] col : cols) {
+                for (int i = col[0]; i <= Math.min(col[1], lastColumn); i++) {
+                    columnWidths[i] = col[2];
+                }
+            }
+            return new StreamingSheet(index, name, columnWidths, defaultRowHeight, mergedRegions);
+        }
+    }
+
+    /**
+     * 第二遍解析：逐行读取单元格并回调
+     */
+    private static final class SheetDataHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StyleResolver styles;
+        private final short defaultRowHeight;
+        private final RowHandler handler;
+
+        private final StringBuilder text = new StringBuilder();
+        private boolean collecting;
+
+        private StreamingRow row;
+        private int nextRowNum;
+        private int nextColumn;
+
+        private int column;
+        private String type;
+        private StreamingCellStyle style;
+
+        private SheetDataHandler(ReadOnlySharedStringsTable strings, StyleResolver styles, short defaultRowHeight, RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.defaultRowHeight = defaultRowHeight;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    int rowNum = r == null ? nextRowNum : Integer.parseInt(r) - 1;
+                    String ht = attributes.getValue("ht");
+                    short height = ht == null ? defaultRowHeight : (short) (Double.parseDouble(ht) * 20);
+                    row = new StreamingRow(rowNum, height);
+                    nextRowNum = rowNum + 1;
+                    nextColumn = 0;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref == null ? nextColumn : parseColumn(ref);
+                    nextColumn = column + 1;
+                    type = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    style = styles.get(s == null ? 0 : Integer.parseInt(s));
+                    text.setLength(0);
+                    break;
+                case "v":
+                case "t":
+                    collecting = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t":
+                    collecting = false;
+                    break;
+                case "c":
+                    row.getCells().add(new StreamingCell(column, cellValue(), style));
+                    break;
+                case "row":
+                    try {
+                        handler.row(row);
+                    } catch (IOException e) {
+                        throw new RowHandlerException(e);
+                    }
+                    row = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private String cellValue() {
+            if (text.length() == 0) {
+                return "";
+            }
+            String raw = text.toString();
+            if (type == null || "n".equals(type)) {
+                try {
+                    return style.formatNumber(Double.parseDouble(raw)).trim();
+                } catch (NumberFormatException e) {
+                    return raw.trim();
+                }
+            }
+            switch (type) {
+                case "s":
+                    return strings.getItemAt(Integer.parseInt(raw)).getString().trim();
+                case "b":
+                    return "1".equals(raw) ? "TRUE" : "FALSE";
+                default:
+                    return raw.trim();
+            }
+        }
+    }
+
+    /**
+     * 在SAX回调中传递RowHandler抛出的IOException
+     */
+    private static final class RowHandlerException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        private RowHandlerException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
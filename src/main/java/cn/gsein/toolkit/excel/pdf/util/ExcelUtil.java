@@ -28,7 +28,8 @@ public class ExcelUtil {
         int rowNum = getRowNumOfMaxColumnCount(sheet);
         Row row = sheet.getRow(rowNum);
         short firstCellNum = row.getFirstCellNum();
-        int cellCount = row.getLastCellNum() + 1 - firstCellNum;
+        // getLastCellNum()已是最后一列的下一列
+        int cellCount = row.getLastCellNum() - firstCellNum;
         int[] widths = new int[cellCount];
 
         for (int i = firstCellNum; i < cellCount + firstCellNum; i++) {
@@ -1,15 +1,14 @@
 package cn.gsein.toolkit.excel.pdf.util;
 
+import cn.gsein.toolkit.excel.util.BorderPath;
+import cn.gsein.toolkit.excel.util.GridLayout;
+import cn.gsein.toolkit.excel.util.LineBreaker;
+import cn.gsein.toolkit.excel.util.PageText;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
-import org.apache.pdfbox.util.Matrix;
 import org.apache.poi.ss.usermodel.Font;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 /**
  * PDF工具类，基于pdfbox
@@ -28,25 +27,37 @@ public final class PdfUtil {
     private static final float PAGE_WIDTH = 210 * POINTS_PER_MM;
     private static final float PAGE_HEIGHT = 297 * POINTS_PER_MM;
 
+    /**
+     * 页面左上角单元格的左上角坐标
+     */
+    private static final float ORIGIN_X = PAGE_WIDTH * 0.03f;
+    private static final float ORIGIN_Y = PAGE_HEIGHT - 15f;
+
+    /**
+     * @deprecated 每次调用都要累加列宽和行高，绘制大量单元格时请使用{@link #drawRect(PDPageContentStream, GridLayout, int, int, int, int, int, int, int)}
+     */
+    @Deprecated
     public static void drawRect(PDPageContentStream stream, int[] widths, int[] heights, int startRowIndex, int rowNum, int startColumnIndex, int cellNum, int rowSpan, int colSpan, int border) {
-        float x = PAGE_WIDTH * 0.03f;
-        float y = PAGE_HEIGHT - 15f;
-        for (int i = startColumnIndex; i < cellNum; i++) {
-            x += widths[i] * 1.0f / 256 * 8;
-        }
+        drawRect(stream, GridLayout.of(widths, heights), startRowIndex, rowNum, startColumnIndex, cellNum, rowSpan, colSpan, border);
+    }
 
-        float width = 0;
-        for (int i = cellNum; i < cellNum + colSpan; i++) {
-            width += widths[i] * 1.0f / 256 * 8;
-        }
+    /**
+     * 将单元格边框加入页面的边框集合，由{@link BorderPath#stroke(PDPageContentStream)}合并后统一绘制
+     */
+    public static void drawRect(BorderPath path, GridLayout layout, int startRowIndex, int rowNum, int startColumnIndex, int cellNum, int rowSpan, int colSpan, int border) {
+        float x = ORIGIN_X + layout.getX(startColumnIndex, cellNum);
+        float y = ORIGIN_Y - layout.getY(startRowIndex, rowNum);
+        path.addRect(x, y, layout.getWidth(cellNum, colSpan), layout.getHeight(rowNum, rowSpan), border);
+    }
 
-        for (int i = startRowIndex; i < rowNum; i++) {
-            y -= heights[i] * 1.5f / 256 * 8;
-        }
-        float height = 0;
-        for (int i = rowNum; i < rowNum + rowSpan; i++) {
-            height += heights[i] * 1.5f / 256 * 8;
-        }
+    /**
+     * 绘制单元格边框，坐标相对于页面左上角的单元格（startRowIndex行、startColumnIndex列）
+     */
+    public static void drawRect(PDPageContentStream stream, GridLayout layout, int startRowIndex, int rowNum, int startColumnIndex, int cellNum, int rowSpan, int colSpan, int border) {
+        float x = ORIGIN_X + layout.getX(startColumnIndex, cellNum);
+        float y = ORIGIN_Y - layout.getY(startRowIndex, rowNum);
+        float width = layout.getWidth(cellNum, colSpan);
+        float height = layout.getHeight(rowNum, rowSpan);
 
         try {
             stream.moveTo(x, y);
@@ -70,112 +81,46 @@ public final class PdfUtil {
         }
     }
 
+    /**
+     * @deprecated 每次调用都要累加列宽和行高，绘制大量单元格时请使用{@link #drawString(PDFont, PDPageContentStream, float, boolean, GridLayout, int, int, int, int, int, int, String)}
+     */
+    @Deprecated
     public static void drawString(PDFont font, PDPageContentStream stream, Font excelFont, int[] widths, int[] heights, int startRowIndex, int rowNum, int startColumnIndex, int cellNum, int rowSpan, int colSpan, String value) {
-        float x = PAGE_WIDTH * 0.03f;
-        float y = PAGE_HEIGHT - 15f;
-        for (int i = startColumnIndex; i < cellNum; i++) {
-            x += widths[i] * 1.0f / 256 * 8;
-        }
+        drawString(font, stream, excelFont.getFontHeightInPoints(), excelFont.getBold(), GridLayout.of(widths, heights), startRowIndex, rowNum, startColumnIndex, cellNum, rowSpan, colSpan, value);
+    }
 
-        float width = 0;
-        for (int i = cellNum; i < cellNum + colSpan; i++) {
-            width += widths[i] * 1.0f / 256 * 8;
+    /**
+     * 在单元格中居中绘制文字，超出单元格宽度时自动换行，坐标相对于页面左上角的单元格（startRowIndex行、startColumnIndex列）
+     */
+    public static void drawString(PDFont font, PDPageContentStream stream, float fontSize, boolean bold, GridLayout layout, int startRowIndex, int rowNum, int startColumnIndex, int cellNum, int rowSpan, int colSpan, String value) {
+        PageText text = new PageText();
+        drawString(font, text, fontSize, bold, layout, startRowIndex, rowNum, startColumnIndex, cellNum, rowSpan, colSpan, value);
+        try {
+            text.write(stream);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
 
-        for (int i = startRowIndex; i < rowNum; i++) {
-            y -= heights[i] * 1.5f / 256 * 8;
-        }
-        float height = 0;
-        for (int i = rowNum; i < rowNum + rowSpan; i++) {
-            height += heights[i] * 1.5f / 256 * 8;
-        }
+    /**
+     * 将单元格中居中的文字加入页面的文字集合，由{@link PageText#write(PDPageContentStream)}统一输出，坐标相对于页面左上角的单元格（startRowIndex行、startColumnIndex列）
+     */
+    public static void drawString(PDFont font, PageText text, float fontSize, boolean bold, GridLayout layout, int startRowIndex, int rowNum, int startColumnIndex, int cellNum, int rowSpan, int colSpan, String value) {
+        float x = ORIGIN_X + layout.getX(startColumnIndex, cellNum);
+        float y = ORIGIN_Y - layout.getY(startRowIndex, rowNum);
+        float width = layout.getWidth(cellNum, colSpan);
+        float height = layout.getHeight(rowNum, rowSpan);
 
         try {
-            float fontSize = excelFont.getFontHeightInPoints();
-            stream.setFont(font, fontSize);
-
-
-            List<String> realLines = new ArrayList<>(Arrays.asList(value.split("[\n\r]")));
-            List<String> lines = new ArrayList<>();
-            for (String realLine : realLines) {
-                float stringWidth = font.getStringWidth(realLine) / 1000f * fontSize;
-                if (stringWidth > width - fontSize) {
-                    List<String> fakeLines = splitRealLine(realLine, font, fontSize, width - fontSize);
-                    lines.addAll(fakeLines);
-                } else {
-                    lines.add(realLine);
-                }
-            }
-
+            LineBreaker.TextLines lines = LineBreaker.of(font).breakLines(value, fontSize, width - fontSize);
             int lineCount = lines.size();
             for (int i = 0; i < lineCount; i++) {
-                String line = lines.get(i).trim();
-                float stringWidth = font.getStringWidth(line) / 1000f * fontSize;
-                float centeredX = x + 0.5f * (width - stringWidth);
+                float centeredX = x + 0.5f * (width - lines.getWidth(i));
                 float centeredY = y - 0.5f * (height + fontSize) + (0.75f * (lineCount - 1) - 1.5f * i) * fontSize;
-                if (excelFont.getBold()) {
-                    stream.setRenderingMode(RenderingMode.STROKE);
-                } else {
-                    stream.setRenderingMode(RenderingMode.FILL);
-                }
-                stream.beginText();
-                stream.setTextMatrix(new Matrix(1, 0, 0, 1, centeredX, centeredY));
-                stream.showText(line);
-                stream.endText();
+                text.add(font, fontSize, bold, centeredX, centeredY, lines.getLine(i));
             }
-
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
-
-    private static List<String> splitRealLine(String realLine, PDFont font, float fontSize, float width) throws IOException {
-        List<String> fakeLines = new ArrayList<>();
-        // 按空白字符拆分
-        String[] words = realLine.split("\\s");
-        StringBuilder builder = new StringBuilder();
-        float nowWidth = 0;
-        for (int i = 0; i < words.length; i++) {
-            float wordWidth = font.getStringWidth(words[i]) / 1000f * fontSize;
-            if (wordWidth > width) {
-                // 单词本身超过一行
-                if (builder.length() != 0) {
-                    fakeLines.add(builder.toString());
-                }
-                fakeLines.addAll(furtherDealFakeLine(words[i]));
-                builder = new StringBuilder();
-                nowWidth = 0;
-            } else if (i == words.length - 1) {
-                // 最后一行
-                builder.append(" ").append(words[i]);
-                fakeLines.add(builder.toString());
-            } else if (nowWidth + wordWidth > width) {
-                fakeLines.add(builder.toString());
-                builder = new StringBuilder(words[i]);
-                // 下一行当前宽度
-                nowWidth = wordWidth;
-            } else {
-                nowWidth += wordWidth;
-                builder.append(" ").append(words[i]);
-            }
-        }
-        return fakeLines;
-    }
-
-    private static List<String> furtherDealFakeLine(String word) {
-        List<String> fakeLines = new ArrayList<>();
-        if (word.contains("/")) {
-            String[] split = word.split("/");
-            for (int i = 0; i < split.length; i++) {
-                if (i == 0) {
-                    fakeLines.add(split[i]);
-                } else {
-                    fakeLines.add("/" + split[i]);
-                }
-            }
-        } else {
-            fakeLines.add(word);
-        }
-        return fakeLines;
-    }
 }
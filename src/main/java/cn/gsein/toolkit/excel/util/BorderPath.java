@@ -0,0 +1,162 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 一页中所有单元格边框的线段集合
+ * <p>
+ * 相邻单元格共用的边只保留一条，同一直线上首尾相接或重叠的线段合并为一条长线段，
+ * 最后在{@link #stroke(PDPageContentStream)}或{@link #stroke(PageContentWriter)}中一次性输出并描边。
+ * 坐标按1/256磅取整后打包为long保存，排序、合并都在基本类型数组上完成。
+ * 每页使用一个实例，不能在多个线程中共用。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class BorderPath {
+
+    private static final int TOP = 1;
+    private static final int RIGHT = 2;
+    private static final int BOTTOM = 4;
+    private static final int LEFT = 8;
+
+    private static final float UNITS_PER_POINT = 256f;
+    /**
+     * 坐标偏移量（磅），使页面外少量超出的坐标也为正数
+     */
+    private static final float BIAS = 2048f;
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    private long[] horizontal = new long[64];
+    private int horizontalCount;
+    private long[] vertical = new long[64];
+    private int verticalCount;
+
+    /**
+     * 加入一个单元格的边框，(x, y)为左上角坐标
+     *
+     * @param border 边框，上1 右2 下4 左8
+     */
+    public void addRect(float x, float y, float width, float height, int border) {
+        if ((border & TOP) != 0) {
+            addHorizontal(y, x, x + width);
+        }
+        if ((border & RIGHT) != 0) {
+            addVertical(x + width, y - height, y);
+        }
+        if ((border & BOTTOM) != 0) {
+            addHorizontal(y - height, x, x + width);
+        }
+        if ((border & LEFT) != 0) {
+            addVertical(x, y - height, y);
+        }
+    }
+
+    /**
+     * 加入一条水平线段
+     */
+    public void addHorizontal(float y, float x1, float x2) {
+        if (horizontalCount == horizontal.length) {
+            horizontal = Arrays.copyOf(horizontal, horizontalCount * 2);
+        }
+        horizontal[horizontalCount++] = pack(y, x1, x2);
+    }
+
+    /**
+     * 加入一条竖直线段
+     */
+    public void addVertical(float x, float y1, float y2) {
+        if (verticalCount == vertical.length) {
+            vertical = Arrays.copyOf(vertical, verticalCount * 2);
+        }
+        vertical[verticalCount++] = pack(x, y1, y2);
+    }
+
+    public boolean isEmpty() {
+        return horizontalCount == 0 && verticalCount == 0;
+    }
+
+    /**
+     * 合并线段后输出路径并描边，之后集合清空，可以继续用于下一页
+     */
+    public void stroke(PDPageContentStream stream) throws IOException {
+        strokeTo(ContentOperators.of(stream));
+    }
+
+    /**
+     * 合并线段后写入路径并描边，之后集合清空，可以继续用于下一页
+     */
+    public void stroke(PageContentWriter writer) throws IOException {
+        strokeTo(writer);
+    }
+
+    private void strokeTo(ContentOperators stream) throws IOException {
+        if (isEmpty()) {
+            return;
+        }
+        appendLines(stream, horizontal, horizontalCount, true);
+        appendLines(stream, vertical, verticalCount, false);
+        stream.stroke();
+        horizontalCount = 0;
+        verticalCount = 0;
+    }
+
+    private static void appendLines(ContentOperators stream, long[] segments, int count, boolean horizontal) throws IOException {
+        // 按所在直线、起点排序后，同一直线上相接或重叠的线段相邻
+        Arrays.sort(segments, 0, count);
+        int i = 0;
+        while (i < count) {
+            long line = lineOf(segments[i]);
+            long start = startOf(segments[i]);
+            long end = endOf(segments[i]);
+            i++;
+            // 允许1/256磅的误差，由不同单元格累加出的同一坐标可能相差一个单位
+            while (i < count && lineOf(segments[i]) == line && startOf(segments[i]) <= end + 1) {
+                end = Math.max(end, endOf(segments[i]));
+                i++;
+            }
+            float position = toPoint(line);
+            if (horizontal) {
+                stream.moveTo(toPoint(start), position);
+                stream.lineTo(toPoint(end), position);
+            } else {
+                stream.moveTo(position, toPoint(start));
+                stream.lineTo(position, toPoint(end));
+            }
+        }
+    }
+
+    /**
+     * 打包为（直线位置、起点、终点）各21位
+     */
+    private static long pack(float line, float from, float to) {
+        long start = toUnit(Math.min(from, to));
+        long end = toUnit(Math.max(from, to));
+        return toUnit(line) << (2 * BITS) | start << BITS | end;
+    }
+
+    private static long toUnit(float point) {
+        long unit = Math.round((point + BIAS) * UNITS_PER_POINT);
+        return Math.max(0, Math.min(MASK, unit));
+    }
+
+    private static float toPoint(long unit) {
+        return unit / UNITS_PER_POINT - BIAS;
+    }
+
+    private static long lineOf(long segment) {
+        return segment >>> (2 * BITS);
+    }
+
+    private static long startOf(long segment) {
+        return (segment >>> BITS) & MASK;
+    }
+
+    private static long endOf(long segment) {
+        return segment & MASK;
+    }
+}
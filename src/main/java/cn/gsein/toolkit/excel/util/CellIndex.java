@@ -0,0 +1,143 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * sheet中需要绘制的单元格索引，每个sheet只构建一次
+ * <p>
+ * 只记录物理单元格（有值或有样式的单元格）和合并区域的左上角单元格，按行保存排好序的列号。
+ * 不存在的单元格使用默认样式、没有内容，绘制时不产生输出，因此遍历时可以跳过，
+ * 很宽但很稀疏的sheet的绘制时间只与实际的单元格数量有关。合并区域的左上角单元格不存在时，
+ * 边框由其他角上的单元格决定，仍需要绘制。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class CellIndex {
+
+    private static final int[] NO_COLUMNS = new int[0];
+
+    private final int firstRow;
+
+    /**
+     * 第firstRow + i行需要绘制的列号
+     */
+    private final int[][] columns;
+
+    private CellIndex(int firstRow, int[][] columns) {
+        this.firstRow = firstRow;
+        this.columns = columns;
+    }
+
+    /**
+     * 为sheet构建单元格索引
+     */
+    public static CellIndex of(Sheet sheet) {
+        return of(sheet, sheet.getMergedRegions());
+    }
+
+    /**
+     * 为sheet构建单元格索引，mergedRegions为sheet中的合并区域
+     */
+    public static CellIndex of(Sheet sheet, List<CellRangeAddress> mergedRegions) {
+        if (sheet.getPhysicalNumberOfRows() == 0 && mergedRegions.isEmpty()) {
+            return new CellIndex(0, new int[0][]);
+        }
+        int firstRow = sheet.getFirstRowNum();
+        int lastRow = sheet.getLastRowNum();
+        int[][] columns = new int[Math.max(0, lastRow - firstRow + 1)][];
+        int[] sizes = new int[columns.length];
+        for (Row row : sheet) {
+            int index = row.getRowNum() - firstRow;
+            int[] rowColumns = new int[Math.max(0, row.getPhysicalNumberOfCells())];
+            int size = 0;
+            for (Cell cell : row) {
+                if (size == rowColumns.length) {
+                    rowColumns = Arrays.copyOf(rowColumns, size * 2 + 1);
+                }
+                rowColumns[size++] = cell.getColumnIndex();
+            }
+            columns[index] = rowColumns;
+            sizes[index] = size;
+        }
+
+        // 加入合并区域的左上角单元格，超出sheet行范围的合并区域不会被绘制
+        boolean[] unsorted = new boolean[columns.length];
+        for (CellRangeAddress region : mergedRegions) {
+            int index = region.getFirstRow() - firstRow;
+            if (index < 0 || index >= columns.length) {
+                continue;
+            }
+            int[] rowColumns = columns[index] == null ? new int[1] : columns[index];
+            if (sizes[index] == rowColumns.length) {
+                rowColumns = Arrays.copyOf(rowColumns, sizes[index] * 2 + 1);
+            }
+            rowColumns[sizes[index]++] = region.getFirstColumn();
+            columns[index] = rowColumns;
+            unsorted[index] = true;
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null || sizes[i] == 0) {
+                columns[i] = NO_COLUMNS;
+            } else if (unsorted[i]) {
+                columns[i] = distinct(columns[i], sizes[i]);
+            } else if (sizes[i] != columns[i].length) {
+                columns[i] = Arrays.copyOf(columns[i], sizes[i]);
+            }
+        }
+        return new CellIndex(firstRow, columns);
+    }
+
+    /**
+     * 获取一行中需要绘制的列号，按从小到大排列，返回的数组不能修改
+     */
+    public int[] getColumns(int row) {
+        int index = row - firstRow;
+        if (index < 0 || index >= columns.length) {
+            return NO_COLUMNS;
+        }
+        return columns[index];
+    }
+
+    /**
+     * 获取一行中在[fromColumn, toColumn)之间需要绘制的列号，按从小到大排列，返回的数组不能修改
+     */
+    public int[] getColumns(int row, int fromColumn, int toColumn) {
+        int[] rowColumns = getColumns(row);
+        if (rowColumns.length == 0) {
+            return rowColumns;
+        }
+        int from = lowerBound(rowColumns, fromColumn);
+        int to = lowerBound(rowColumns, toColumn);
+        if (from == 0 && to == rowColumns.length) {
+            return rowColumns;
+        }
+        return from >= to ? NO_COLUMNS : Arrays.copyOfRange(rowColumns, from, to);
+    }
+
+    /**
+     * 第一个不小于column的位置
+     */
+    private static int lowerBound(int[] sorted, int column) {
+        int index = Arrays.binarySearch(sorted, column);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int[] distinct(int[] values, int size) {
+        Arrays.sort(values, 0, size);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (count == 0 || values[i] != values[count - 1]) {
+                values[count++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+}
@@ -0,0 +1,326 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.LocaleUtil;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单元格值的格式化器，由数据格式编译而来
+ * <p>
+ * 最近使用的数据格式在整个JVM中共用一份编译结果（见{@link #of(int, String)}），最多缓存{@link #MAX_CACHED_FORMATTERS}个，
+ * 超出时淘汰最久未使用的。格式化器可以在多个线程中共用：
+ * 日期、时间使用不可变的DateTimeFormatter，数字格式由每个线程持有一份DecimalFormat副本。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-22
+ */
+public final class CellValueFormatter {
+
+    /**
+     * DecimalFormat格式中有特殊含义、可以直接使用的字符
+     */
+    private static final String NUMBER_PATTERN_CHARACTERS = "0#,.%";
+
+    /**
+     * 内置的时间格式 h:mm
+     */
+    private static final int TIME_FORMAT_INDEX = BuiltinFormats.getBuiltinFormat("h:mm");
+
+    /**
+     * 自定义日期格式：m月d日
+     */
+    private static final int CHINESE_DATE_FORMAT_INDEX = 58;
+
+    /**
+     * 与Cell.toString()中日期的显示格式一致
+     */
+    private static final DateTimeFormatter TO_STRING_DATE = DateTimeFormatter.ofPattern("dd-MMM-yyyy");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final ThreadLocal<DecimalFormat> GENERAL_NUMBER = ThreadLocal.withInitial(() -> new DecimalFormat("#"));
+    private static final ThreadLocal<DecimalFormat> DEFAULT_NUMBER = ThreadLocal.withInitial(DecimalFormat::new);
+
+    /**
+     * 缓存的格式化器数量上限。工作簿中的自定义格式通常只有几十个，上限只用于防止大量不同的工作簿占满内存
+     */
+    private static final int MAX_CACHED_FORMATTERS = 1024;
+
+    /**
+     * 按访问顺序排列的格式化器缓存，读写时需要持有自身的锁
+     */
+    private static final Map<String, CellValueFormatter> FORMATTERS =
+            new LinkedHashMap<String, CellValueFormatter>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CellValueFormatter> eldest) {
+                    return size() > MAX_CACHED_FORMATTERS;
+                }
+            };
+
+    private final int formatIndex;
+    private final String formatString;
+    private final boolean date;
+    private final boolean general;
+    /**
+     * 由数据格式编译的数字格式，常规、文本及无法编译的格式为null
+     */
+    private final ThreadLocal<DecimalFormat> numberFormat;
+
+    private CellValueFormatter(int formatIndex, String formatString) {
+        this.formatIndex = formatIndex;
+        this.formatString = formatString;
+        this.date = DateUtil.isADateFormat(formatIndex, formatString);
+        this.general = "General".equals(formatString);
+        DecimalFormat compiled = date ? null : compileNumberFormat(formatString);
+        this.numberFormat = compiled == null ? null : ThreadLocal.withInitial(() -> (DecimalFormat) compiled.clone());
+    }
+
+    /**
+     * 获取数据格式对应的格式化器
+     */
+    public static CellValueFormatter of(int formatIndex, String formatString) {
+        String key = formatIndex + ":" + formatString;
+        synchronized (FORMATTERS) {
+            CellValueFormatter formatter = FORMATTERS.get(key);
+            if (formatter != null) {
+                return formatter;
+            }
+        }
+        // 在锁外编译，并发时同一格式可能编译多次，结果相同，保留先放入的一个
+        CellValueFormatter formatter = new CellValueFormatter(formatIndex, formatString);
+        synchronized (FORMATTERS) {
+            CellValueFormatter existing = FORMATTERS.putIfAbsent(key, formatter);
+            return existing != null ? existing : formatter;
+        }
+    }
+
+    public int getFormatIndex() {
+        return formatIndex;
+    }
+
+    public String getFormatString() {
+        return formatString;
+    }
+
+    /**
+     * 是否为日期格式
+     */
+    public boolean isDate() {
+        return date;
+    }
+
+    /**
+     * 是否有需要按数字格式显示的数据格式
+     */
+    public boolean hasNumberFormat() {
+        return numberFormat != null;
+    }
+
+    /**
+     * 单元格的显示文本：数值按数据格式格式化，公式显示缓存的结果，与流式读取的结果一致
+     */
+    public String format(Cell cell) {
+        CellType type = cell.getCellType();
+        if (type == CellType.FORMULA) {
+            type = cell.getCachedFormulaResultType();
+        }
+        switch (type) {
+            case NUMERIC:
+                double value = cell.getNumericCellValue();
+                if (numberFormat == null && date && DateUtil.isValidExcelDate(value)) {
+                    return toStringDate().format(cell.getLocalDateTimeCellValue());
+                }
+                return formatValue(value);
+            case STRING:
+                return cell.getStringCellValue().trim();
+            case BOOLEAN:
+                return cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+            case ERROR:
+                return FormulaError.forInt(cell.getErrorCellValue()).getString();
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * 格式化数值，结果与{@link #format(Cell)}对数值单元格的结果一致（按1900日期系统）
+     */
+    public String formatValue(double value) {
+        if (numberFormat != null) {
+            return numberFormat.get().format(value);
+        }
+        if (date && DateUtil.isValidExcelDate(value)) {
+            return toStringDate().format(DateUtil.getLocalDateTime(value));
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * 按数据格式格式化数字，没有数字格式时返回null
+     */
+    public String formatNumber(double value) {
+        return numberFormat == null ? null : numberFormat.get().format(value);
+    }
+
+    /**
+     * 数值单元格的简明显示文本：日期显示为yyyy-MM-dd，内置时间格式显示为HH:mm，
+     * 常规格式显示为整数，其他格式按默认的数字格式显示
+     */
+    public String formatPlain(Cell cell) {
+        if (DateUtil.isCellDateFormatted(cell)) {
+            LocalDateTime dateTime = cell.getLocalDateTimeCellValue();
+            return formatIndex == TIME_FORMAT_INDEX ? TIME.format(dateTime) : DATE.format(dateTime);
+        }
+        double value = cell.getNumericCellValue();
+        if (formatIndex == CHINESE_DATE_FORMAT_INDEX) {
+            return DATE.format(DateUtil.getLocalDateTime(value));
+        }
+        return general ? GENERAL_NUMBER.get().format(value) : DEFAULT_NUMBER.get().format(value);
+    }
+
+    /**
+     * LocaleUtil的用户区域按线程设置，区域不变时withLocale返回同一个对象
+     */
+    private static DateTimeFormatter toStringDate() {
+        return TO_STRING_DATE.withLocale(LocaleUtil.getUserLocale());
+    }
+
+    /**
+     * 把excel数据格式编译为DecimalFormat：取正数和负数两节，去掉颜色等方括号中的内容（货币符号保留），
+     * 引号和反斜杠转义的文字作为文字输出，去掉“_x”占位和“*x”填充，科学计数法的“E+”改为“E”。
+     * 常规、文本格式，分数、带条件的格式及无法编译的格式返回null
+     */
+    private static DecimalFormat compileNumberFormat(String dataFormat) {
+        //noinspection AlibabaUndefineMagicConstant
+        if (dataFormat == null || dataFormat.length() == 0 || "General".equals(dataFormat) || "@".equals(dataFormat)) {
+            return null;
+        }
+        List<String> sections = splitSections(dataFormat);
+        String positive = toDecimalPattern(sections.get(0));
+        if (positive == null) {
+            return null;
+        }
+        String pattern = positive;
+        if (sections.size() > 1) {
+            String negative = toDecimalPattern(sections.get(1));
+            // excel的负数节不带负号时显示为正数，DecimalFormat的负数子模式只取前后缀，需要有数字占位符
+            if (negative != null && negative.indexOf('0') + negative.indexOf('#') > -2) {
+                pattern = positive + ';' + negative;
+            }
+        }
+        try {
+            DecimalFormat format = new DecimalFormat(pattern);
+            // 与excel一致，四舍五入
+            format.setRoundingMode(RoundingMode.HALF_UP);
+            return format;
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * 按引号、方括号之外的分号拆分格式的各节
+     */
+    private static List<String> splitSections(String dataFormat) {
+        List<String> sections = new ArrayList<>(2);
+        int start = 0;
+        boolean quoted = false;
+        boolean bracketed = false;
+        for (int i = 0; i < dataFormat.length(); i++) {
+            char c = dataFormat.charAt(i);
+            if (c == '\\' && !quoted) {
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && c == '[') {
+                bracketed = true;
+            } else if (!quoted && c == ']') {
+                bracketed = false;
+            } else if (!quoted && !bracketed && c == ';') {
+                sections.add(dataFormat.substring(start, i));
+                start = i + 1;
+            }
+        }
+        sections.add(dataFormat.substring(start));
+        return sections;
+    }
+
+    /**
+     * 把excel格式的一节转换为DecimalFormat格式，不支持时返回null
+     */
+    private static String toDecimalPattern(String section) {
+        StringBuilder pattern = new StringBuilder(section.length() + 8);
+        StringBuilder literal = new StringBuilder();
+        int length = section.length();
+        for (int i = 0; i < length; i++) {
+            char c = section.charAt(i);
+            if (c == '"') {
+                int end = section.indexOf('"', i + 1);
+                end = end < 0 ? length : end;
+                literal.append(section, i + 1, end);
+                i = end;
+            } else if (c == '\\') {
+                if (i + 1 < length) {
+                    literal.append(section.charAt(++i));
+                }
+            } else if (c == '_' || c == '*') {
+                i++;
+            } else if (c == '[') {
+                int end = section.indexOf(']', i);
+                end = end < 0 ? length : end;
+                String content = section.substring(i + 1, end);
+                if (content.startsWith("$")) {
+                    // 货币符号：[$¥-804]
+                    int dash = content.indexOf('-');
+                    literal.append(content, 1, dash < 0 ? content.length() : dash);
+                } else if (content.length() > 0 && "<>=".indexOf(content.charAt(0)) >= 0) {
+                    return null;
+                }
+                i = end;
+            } else if (c == '/') {
+                return null;
+            } else if (c == '?' || NUMBER_PATTERN_CHARACTERS.indexOf(c) >= 0) {
+                appendLiteral(pattern, literal);
+                pattern.append(c == '?' ? '#' : c);
+            } else if ((c == 'E' || c == 'e') && i + 1 < length && (section.charAt(i + 1) == '+' || section.charAt(i + 1) == '-')) {
+                appendLiteral(pattern, literal);
+                pattern.append('E');
+                i++;
+            } else {
+                literal.append(c);
+            }
+        }
+        appendLiteral(pattern, literal);
+        return pattern.length() == 0 ? null : pattern.toString();
+    }
+
+    /**
+     * 以单引号包围的形式写入文字
+     */
+    private static void appendLiteral(StringBuilder pattern, StringBuilder literal) {
+        if (literal.length() == 0) {
+            return;
+        }
+        pattern.append('\'');
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            pattern.append(c == '\'' ? "''" : String.valueOf(c));
+        }
+        pattern.append('\'');
+        literal.setLength(0);
+    }
+}
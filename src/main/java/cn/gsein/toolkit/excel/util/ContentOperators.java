@@ -0,0 +1,94 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+
+import java.io.IOException;
+
+/**
+ * {@link PageText}和{@link BorderPath}输出时用到的内容流指令
+ * <p>
+ * 由{@link #of(PDPageContentStream)}和{@link PageContentWriter}实现，两者输出的字节相同。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+interface ContentOperators {
+
+    void beginText() throws IOException;
+
+    void endText() throws IOException;
+
+    void setFont(PDFont font, float fontSize) throws IOException;
+
+    void setRenderingMode(RenderingMode mode) throws IOException;
+
+    void newLineAtOffset(float tx, float ty) throws IOException;
+
+    /**
+     * 用当前字体输出文字，font为当前字体
+     */
+    void showText(PDFont font, String text) throws IOException;
+
+    void moveTo(float x, float y) throws IOException;
+
+    void lineTo(float x, float y) throws IOException;
+
+    void stroke() throws IOException;
+
+    /**
+     * 写入pdfbox的内容流，字体在setFont时登记到内容流的资源字典中
+     */
+    static ContentOperators of(PDPageContentStream stream) {
+        return new ContentOperators() {
+            @Override
+            public void beginText() throws IOException {
+                stream.beginText();
+            }
+
+            @Override
+            public void endText() throws IOException {
+                stream.endText();
+            }
+
+            @Override
+            public void setFont(PDFont font, float fontSize) throws IOException {
+                stream.setFont(font, fontSize);
+            }
+
+            @Override
+            public void setRenderingMode(RenderingMode mode) throws IOException {
+                stream.setRenderingMode(mode);
+            }
+
+            @Override
+            public void newLineAtOffset(float tx, float ty) throws IOException {
+                stream.newLineAtOffset(tx, ty);
+            }
+
+            @Override
+            public void showText(PDFont font, String text) throws IOException {
+                // 多个线程共用同一字体时，编码和记录子集字形需要在字体上同步
+                synchronized (font) {
+                    stream.showText(text);
+                }
+            }
+
+            @Override
+            public void moveTo(float x, float y) throws IOException {
+                stream.moveTo(x, y);
+            }
+
+            @Override
+            public void lineTo(float x, float y) throws IOException {
+                stream.lineTo(x, y);
+            }
+
+            @Override
+            public void stroke() throws IOException {
+                stream.stroke();
+            }
+        };
+    }
+}
@@ -1,7 +1,6 @@
 package cn.gsein.toolkit.excel.util;
 
 import org.apache.poi.hssf.usermodel.*;
-import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.ooxml.POIXMLDocumentPart;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
@@ -9,9 +8,6 @@ import org.apache.poi.xssf.usermodel.*;
 import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTMarker;
 
 import java.io.*;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -123,6 +119,7 @@ public final class ExcelToHtmlUtil {
     public static String getExcelInfo(Workbook wb, boolean isWithStyle, String uploadPath) {
 
         StringBuilder sb = new StringBuilder();
+        RenderStyles styles = RenderStyles.of(wb);
         int sheetCount = wb.getNumberOfSheets();
         for (int i = 0; i < sheetCount; i++) {
             Sheet sheet = wb.getSheetAt(i);//获取第一个Sheet的内容
@@ -139,13 +136,13 @@ public final class ExcelToHtmlUtil {
             //读取excel拼装html
             int lastRowNum = sheet.getLastRowNum();
             map = getRowSpanColSpanMap(sheet);
-            createTableHtml(wb, isWithStyle, sb, sheet, sheetIndexPicMap, lastRowNum, i);
+            createTableHtml(styles, isWithStyle, sb, sheet, sheetIndexPicMap, lastRowNum, i);
         }
 
         return sb.toString();
     }
 
-    private static void createTableHtml(Workbook wb, boolean isWithStyle, StringBuilder sb, Sheet sheet, Map<String, PictureData> sheetIndexPicMap, int lastRowNum, int i) {
+    private static void createTableHtml(RenderStyles styles, boolean isWithStyle, StringBuilder sb, Sheet sheet, Map<String, PictureData> sheetIndexPicMap, int lastRowNum, int i) {
         sb.append("<table style='border-collapse:collapse;width:80%;'>");
         Row row;
         Cell cell;
@@ -193,7 +190,7 @@ public final class ExcelToHtmlUtil {
 
                     imageHtml = "<img src='" + imagePath + "' style='height:" + rowHeight / 20 + "px;'>";
                 }
-                String stringValue = getCellValue(cell);
+                String stringValue = getCellValue(cell, styles.get(cell).getFormatter());
                 if (map[0].containsKey(rowNum + "," + colNum)) {
                     String pointString = (String) map[0].get(rowNum + "," + colNum);
                     int bottomeRow = Integer.parseInt(pointString.split(",")[0]);
@@ -217,7 +214,7 @@ public final class ExcelToHtmlUtil {
 
                 //判断是否需要样式
                 if (isWithStyle) {
-                    dealExcelStyle(wb, sheet, cell, sb);//处理单元格样式
+                    dealExcelStyle(styles, sheet, cell, sb);//处理单元格样式
                 }
 
                 sb.append(">");
@@ -331,36 +328,15 @@ public final class ExcelToHtmlUtil {
      * 获取表格单元格Cell内容
      */
     private static String getCellValue(Cell cell) {
+        CellStyle style = cell.getCellStyle();
+        return getCellValue(cell, CellValueFormatter.of(style.getDataFormat(), style.getDataFormatString()));
+    }
+
+    private static String getCellValue(Cell cell, CellValueFormatter formatter) {
         String result;
         switch (cell.getCellTypeEnum()) {
-            case NUMERIC:// 数字类型
-                if (HSSFDateUtil.isCellDateFormatted(cell)) {// 处理日期格式、时间格式
-                    SimpleDateFormat sdf = null;
-                    if (cell.getCellStyle().getDataFormat() == HSSFDataFormat.getBuiltinFormat("h:mm")) {
-                        sdf = new SimpleDateFormat("HH:mm");
-                    } else {// 日期
-                        sdf = new SimpleDateFormat("yyyy-MM-dd");
-                    }
-                    Date date = cell.getDateCellValue();
-                    result = sdf.format(date);
-                } else if (cell.getCellStyle().getDataFormat() == 58) {
-                    // 处理自定义日期格式：m月d日(通过判断单元格的格式id解决，id的值是58)
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                    double value = cell.getNumericCellValue();
-                    Date date = org.apache.poi.ss.usermodel.DateUtil
-                            .getJavaDate(value);
-                    result = sdf.format(date);
-                } else {
-                    double value = cell.getNumericCellValue();
-                    CellStyle style = cell.getCellStyle();
-                    DecimalFormat format = new DecimalFormat();
-                    String temp = style.getDataFormatString();
-                    // 单元格设置成常规
-                    if ("General".equals(temp)) {
-                        format.applyPattern("#");
-                    }
-                    result = format.format(value);
-                }
+            case NUMERIC:// 数字类型，日期、时间、数字分别处理
+                result = formatter.formatPlain(cell);
                 break;
             case STRING:// String类型
                 result = cell.getRichStringCellValue().toString();
@@ -375,107 +351,54 @@ public final class ExcelToHtmlUtil {
     /**
      * 处理单元格样式
      */
-    private static void dealExcelStyle(Workbook wb, Sheet sheet, Cell cell, StringBuilder sb) {
-        CellStyle cellStyle = cell.getCellStyle();
-        if (cellStyle != null) {
-            HorizontalAlignment alignment = cellStyle.getAlignmentEnum();
-            sb.append("align='").append(convertAlignToHtml(alignment)).append("' ");//单元格内容的水平对齐方式
-            VerticalAlignment verticalAlignment = cellStyle.getVerticalAlignmentEnum();
-            sb.append("valign='").append(convertVerticalAlignToHtml(verticalAlignment)).append("' ");//单元格中内容的垂直排列方式
-
-            if (wb instanceof XSSFWorkbook) {
-                XSSFFont xf = ((XSSFCellStyle) cellStyle).getFont();
-                boolean bold = xf.getBold();
-                sb.append("style='");
-                if (bold) {
-                    // 字体加粗
-                    sb.append("font-weight: bold;");
-                }
-                // 字体大小
-                sb.append("font-size: ").append(xf.getFontHeight() / 2).append("%;");
-
-                int topRow = cell.getRowIndex(), topColumn = cell.getColumnIndex();
-                int columnWidth;
-                if (map[0].containsKey(topRow + "," + topColumn)) {
-                    //该单元格为合并单元格，宽度需要获取所有单元格宽度后合并
-                    String value = (String) map[0].get(topRow + "," + topColumn);
-                    String[] ary = value.split(",");
-                    int bottomColumn = Integer.parseInt(ary[1]);
-
-                    if (topColumn != bottomColumn) {
-                        //合并列，需要计算相应宽度
-                        columnWidth = 0;
-                        for (int i = topColumn; i <= bottomColumn; i++) {
-                            columnWidth += sheet.getColumnWidth(i);
-                        }
-                    } else {
-                        columnWidth = sheet.getColumnWidth(cell.getColumnIndex());
-                    }
-                } else {
-                    columnWidth = sheet.getColumnWidth(cell.getColumnIndex());
-                }
-                sb.append("width:").append(columnWidth / 256 * xf.getFontHeight() / 20).append("pt;");
-
-                // 字体颜色
-                XSSFColor xc = xf.getXSSFColor();
-                if (xc != null && !"".equals(xc.toString())) {
-                    sb.append("color:#").append(xc.getARGBHex().substring(2)).append(";");
-                }
-
-                // 背景颜色
-                XSSFColor bgColor = (XSSFColor) cellStyle.getFillForegroundColorColor();
-                if (bgColor != null && !"".equals(bgColor.toString())) {
-                    sb.append("background-color:#").append(bgColor.getARGBHex().substring(2)).append(";");
-                }
-
-                // 边框
-                sb.append("border:solid #000000 1px;");
-            } else if (wb instanceof HSSFWorkbook) {
-                HSSFFont hf = ((HSSFCellStyle) cellStyle).getFont(wb);
-                boolean bold = hf.getBold();
-                short fontColor = hf.getColor();
-                sb.append("style='");
-
-                HSSFPalette palette = ((HSSFWorkbook) wb).getCustomPalette(); // 类HSSFPalette用于求的颜色的国际标准形式
-                HSSFColor hc = palette.getColor(fontColor);
-                if (bold) {
-                    sb.append("font-weight: bold;"); // 字体加粗
-                }
-                sb.append("font-size: ").append(hf.getFontHeight() / 2).append("%;"); // 字体大小
-                String fontColorStr = convertToStardColor(hc);
-                if (fontColorStr != null && !"".equals(fontColorStr.trim())) {
-                    sb.append("color:").append(fontColorStr).append(";"); // 字体颜色
-                }
+    private static void dealExcelStyle(RenderStyles styles, Sheet sheet, Cell cell, StringBuilder sb) {
+        if (cell.getCellStyle() != null) {
+            RenderStyle style = styles.get(cell);
+            sb.append("align='").append(convertAlignToHtml(style.getAlignment())).append("' ");//单元格内容的水平对齐方式
+            sb.append("valign='").append(convertVerticalAlignToHtml(style.getVerticalAlignment())).append("' ");//单元格中内容的垂直排列方式
+
+            sb.append("style='");
+            if (style.isBold()) {
+                // 字体加粗
+                sb.append("font-weight: bold;");
+            }
+            // 字体大小
+            sb.append("font-size: ").append(style.getFontHeight() / 2).append("%;");
 
-                int topRow = cell.getRowIndex(), topColumn = cell.getColumnIndex();
-                int columnWidth;
+            int topRow = cell.getRowIndex(), topColumn = cell.getColumnIndex();
+            int columnWidth;
+            if (map[0].containsKey(topRow + "," + topColumn)) {
                 //该单元格为合并单元格，宽度需要获取所有单元格宽度后合并
-                if (map[0].containsKey(topRow + "," + topColumn)) {
-                    String value = (String) map[0].get(topRow + "," + topColumn);
-                    String[] ary = value.split(",");
-                    int bottomColumn = Integer.parseInt(ary[1]);
-
-                    if (topColumn != bottomColumn) {//合并列，需要计算相应宽度
-                        columnWidth = 0;
-                        for (int i = topColumn; i <= bottomColumn; i++) {
-                            columnWidth += sheet.getColumnWidth(i);
-                        }
-                    } else {
-                        columnWidth = sheet.getColumnWidth(cell.getColumnIndex());
+                String value = (String) map[0].get(topRow + "," + topColumn);
+                String[] ary = value.split(",");
+                int bottomColumn = Integer.parseInt(ary[1]);
+
+                if (topColumn != bottomColumn) {
+                    //合并列，需要计算相应宽度
+                    columnWidth = 0;
+                    for (int i = topColumn; i <= bottomColumn; i++) {
+                        columnWidth += sheet.getColumnWidth(i);
                     }
                 } else {
                     columnWidth = sheet.getColumnWidth(cell.getColumnIndex());
                 }
-                sb.append("width:").append(columnWidth / 256 * hf.getFontHeight() / 20).append("pt;");
+            } else {
+                columnWidth = sheet.getColumnWidth(cell.getColumnIndex());
+            }
+            sb.append("width:").append(columnWidth / 256 * style.getFontHeight() / 20).append("pt;");
 
-                short bgColor = cellStyle.getFillForegroundColor();
-                hc = palette.getColor(bgColor);
-                String bgColorStr = convertToStardColor(hc);
-                if (bgColorStr != null && !"".equals(bgColorStr.trim())) {
-                    sb.append("background-color:").append(bgColorStr).append(";");        // 背景颜色
-                }
-                sb.append("border:solid #000000 1px;");
+            // 字体颜色
+            if (style.getFontColor() != null) {
+                sb.append("color:").append(style.getFontColor()).append(";");
             }
+
+            // 背景颜色
+            if (style.getFillColor() != null) {
+                sb.append("background-color:").append(style.getFillColor()).append(";");
+            }
+
+            // 边框
+            sb.append("border:solid #000000 1px;");
             sb.append("' ");
         }
     }
@@ -522,28 +445,6 @@ public final class ExcelToHtmlUtil {
         return valign;
     }
 
-    private static String convertToStardColor(HSSFColor hc) {
-        StringBuilder sb = new StringBuilder();
-        if (hc != null) {
-            if (HSSFColor.HSSFColorPredefined.AUTOMATIC.getIndex() == hc.getIndex()) {
-                return null;
-            }
-            sb.append("#");
-            for (int i = 0; i < hc.getTriplet().length; i++) {
-                sb.append(fillWithZero(Integer.toHexString(hc.getTriplet()[i])));
-            }
-        }
-        return sb.toString();
-    }
-
-    private static String fillWithZero(String str) {
-        if (str != null && str.length() < 2) {
-            return "0" + str;
-        }
-        return str;
-    }
-
-
     /**
      * 获取Excel图片公共方法
      *
@@ -1,20 +1,18 @@
 package cn.gsein.toolkit.excel.util;
 
+import cn.gsein.toolkit.excel.jfr.ConversionEvents;
 import com.itextpdf.text.*;
 import com.itextpdf.text.Font;
 import com.itextpdf.text.pdf.*;
-import org.apache.poi.hssf.usermodel.HSSFCell;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.*;
-import java.net.URL;
-import java.text.DecimalFormat;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 将EXCEL转为PDF的工具类
@@ -26,80 +24,10 @@ public final class ExcelToPdfItextUtil {
     private ExcelToPdfItextUtil() {
     }
 
-    private static final String XLS = ".xls";
     private static final String XLSX = ".xlsx";
     private static final String XLSM = ".xlsm";
-    private static final String PERCENT = "%";
 
 
-    /**
-     * 获取字体
-     */
-    private static org.apache.poi.ss.usermodel.Font getExcelFont(Workbook workbook, Cell cell, String excelName) {
-        if (excelName.endsWith(XLS)) {
-            return ((HSSFCell) cell).getCellStyle().getFont(workbook);
-        }
-        return ((XSSFCell) cell).getCellStyle().getFont();
-    }
-
-
-    /**
-     * 获取excel单元格数据显示格式
-     */
-    private static String getNumStyle(String dataFormat) throws Exception {
-        if (dataFormat == null || dataFormat.length() == 0) {
-            throw new Exception("");
-        }
-        if (dataFormat.contains(PERCENT)) {
-            return dataFormat;
-        } else {
-            return dataFormat.substring(0, dataFormat.length() - 2);
-        }
-
-    }
-
-    /**
-     * 判断单元格是否是合并单元格
-     */
-    private static boolean isMergedRegion(Sheet sheet, int row, int column) {
-        int sheetMergeCount = sheet.getNumMergedRegions();
-        for (int i = 0; i < sheetMergeCount; i++) {
-            CellRangeAddress range = sheet.getMergedRegion(i);
-            int firstColumn = range.getFirstColumn();
-            int lastColumn = range.getLastColumn();
-            int firstRow = range.getFirstRow();
-            int lastRow = range.getLastRow();
-            if (row >= firstRow && row <= lastRow) {
-                if (column >= firstColumn && column <= lastColumn) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-
-    /**
-     * 计算合并单元格合并的跨行跨列数
-     */
-    private static int[] getMergedSpan(Sheet sheet, int row, int column) {
-        int sheetMergeCount = sheet.getNumMergedRegions();
-        int[] span = {1, 1};
-        for (int i = 0; i < sheetMergeCount; i++) {
-            CellRangeAddress range = sheet.getMergedRegion(i);
-            int firstColumn = range.getFirstColumn();
-            int lastColumn = range.getLastColumn();
-            int firstRow = range.getFirstRow();
-            int lastRow = range.getLastRow();
-            if (firstColumn == column && firstRow == row) {
-                span[0] = lastRow - firstRow + 1;
-                span[1] = lastColumn - firstColumn + 1;
-                break;
-            }
-        }
-        return span;
-    }
-
     /**
      * 获取excel中列数最多的行号
      */
@@ -146,15 +74,6 @@ public final class ExcelToPdfItextUtil {
     }
 
 
-    /**
-     * 格式化数字
-     */
-    private static String numFormat(String pattern, double num) {
-        DecimalFormat format = new DecimalFormat(pattern);
-        return format.format(num);
-    }
-
-
     /**
      * 获取excel中每列宽度的占比
      */
@@ -181,6 +100,13 @@ public final class ExcelToPdfItextUtil {
     }
 
     public static void excelToPdf(String excelPath, String pdfPath) throws Exception {
+        excelToPdf(excelPath, pdfPath, ImageOptions.ORIGINAL);
+    }
+
+    /**
+     * 转换excel，图片按imageOptions降采样和压缩
+     */
+    public static void excelToPdf(String excelPath, String pdfPath, ImageOptions imageOptions) throws Exception {
         InputStream in = new FileInputStream(excelPath);
 
         // 获取工作簿
@@ -196,6 +122,11 @@ public final class ExcelToPdfItextUtil {
         document.setMargins(0, 0, 15, 15);
         document.open();
 
+        //设置基本字体，所有sheet共用
+        BaseFont baseFont = FontRegistry.getBaseFont(FontRegistry.DEFAULT_FONT);
+        RenderStyles styles = RenderStyles.of(workbook);
+        ImageResampler resampler = new ImageResampler(imageOptions);
+
         for (int i = 0; i < sheetCount; i++) {
             // 获取第一张工作表
             Sheet sheet = workbook.getSheetAt(i);
@@ -204,10 +135,10 @@ public final class ExcelToPdfItextUtil {
             PdfPTable table = new PdfPTable(widths);
             table.setWidthPercentage(90);
             int colCount = widths.length;
-            //设置基本字体
-            URL resource = ExcelToPdfItextUtil.class.getClassLoader().getResource("font/STXIHEI.TTF");
-            BaseFont baseFont = BaseFont.createFont(Objects.requireNonNull(resource).toString(), BaseFont.IDENTITY_H,
-                    BaseFont.EMBEDDED);
+            MergedRegionIndex mergedRegions = MergedRegionIndex.of(sheet);
+            PictureIndex pictures = PictureIndex.of(sheet);
+            Map<PicturesInfo, CompletableFuture<byte[]>> pictureData = resample(resampler, sheet, pictures,
+                    widths, (document.right() - document.left()) * table.getWidthPercentage() / 100);
 
             for (int rowNum = sheet.getFirstRowNum(); rowNum < sheet.getPhysicalNumberOfRows(); rowNum++) {
                 Row row = sheet.getRow(rowNum);
@@ -220,38 +151,42 @@ public final class ExcelToPdfItextUtil {
                             continue;
                         }
                         Cell excelCell = row.getCell(cellNum);
+                        RenderStyle style = styles.get(excelCell);
                         // 获取单元格的值
-                        String value = getCellValue(excelCell);
+                        String value = getCellValue(excelCell, style);
 
                         //设置单元格字体
-                        org.apache.poi.ss.usermodel.Font excelFont = getExcelFont(workbook, excelCell, excelPath);
-                        Font pdFont = new Font(baseFont, excelFont.getFontHeightInPoints(),
-                                excelFont.getBold() ? Font.BOLD : Font.NORMAL, BaseColor.BLACK);
+                        Font pdFont = new Font(baseFont, style.getFontSize(),
+                                style.isBold() ? Font.BOLD : Font.NORMAL, BaseColor.BLACK);
 
                         PdfPCell pCell = new PdfPCell(new Phrase(value, pdFont));
-                        List<PicturesInfo> infos = PoiExtend.getAllPictureInfos(sheet, rowNum, rowNum, cellNum, cellNum, false);
+                        List<PicturesInfo> infos = pictures.find(rowNum, cellNum);
                         if (!infos.isEmpty()) {
                             PicturesInfo info = infos.get(0);
-                            pCell = new PdfPCell(Image.getInstance(infos.get(0).getPictureData()), true);
+                            byte[] data = pictureData.get(info).join();
+                            Object event = ConversionEvents.beginImageEmbed();
+                            Image image = Image.getInstance(data);
+                            pCell = new PdfPCell(image, true);
+                            ConversionEvents.endImageEmbed(event, data.length, (int) image.getWidth(), (int) image.getHeight());
                             pCell.setRowspan(info.getMaxRow() - info.getMinRow() + 1);
                             pCell.setColspan(info.getMaxCol() - info.getMinCol() + 1);
                             System.out.println("最大行：" + info.getMaxRow() + "最小行：" + info.getMinRow() + "最大列:" + info.getMaxCol() + "最小列：" + info.getMinCol());
                         }
 
-                        setPdfCellBorder(Objects.requireNonNull(excelCell), pCell);
-                        pCell.setHorizontalAlignment(getHorizontalAlignment(excelCell.getCellStyle().getAlignmentEnum()));
-                        pCell.setVerticalAlignment(getVerticalAlignment(excelCell.getCellStyle().getVerticalAlignmentEnum()));
+                        pCell.setBorder(toPdfCellBorder(style.getBorder()));
+                        pCell.setHorizontalAlignment(getHorizontalAlignment(style.getAlignment()));
+                        pCell.setVerticalAlignment(getVerticalAlignment(style.getVerticalAlignment()));
 
                         pCell.setMinimumHeight(row.getHeightInPoints());
-                        if (isMergedRegion(sheet, rowNum, cellNum)) {
-                            int[] span = getMergedSpan(sheet, rowNum, cellNum);
+                        if (mergedRegions.isMerged(rowNum, cellNum)) {
+                            int[] span = mergedRegions.getSpan(rowNum, cellNum);
                             //忽略合并过的单元格
                             if (span[0] == 1 && span[1] == 1) {
                                 continue;
                             }
                             pCell.setRowspan(span[0]);
                             pCell.setColspan(span[1]);
-                            setPdfCellBorderForMerged(sheet, rowNum, cellNum, span, pCell);
+                            setPdfCellBorderForMerged(sheet, styles, rowNum, cellNum, span, pCell);
                             //合并过的列直接跳过
                             cellNum = cellNum + span[1] - 1;
                         }
@@ -275,6 +210,28 @@ public final class ExcelToPdfItextUtil {
 
     }
 
+    /**
+     * 在后台线程中按图片所占的大小处理sheet中的全部图片，图片内容在当前线程中读取。
+     * widths为各列宽度的百分比，tableWidth为表格宽度（磅）
+     */
+    private static Map<PicturesInfo, CompletableFuture<byte[]>> resample(ImageResampler resampler, Sheet sheet, PictureIndex pictures,
+                                                                       float[] widths, float tableWidth) {
+        Map<PicturesInfo, CompletableFuture<byte[]>> pictureData = new IdentityHashMap<>();
+        for (PicturesInfo info : pictures.getPictures()) {
+            float width = 0;
+            for (int c = Math.max(0, info.getMinCol()); c <= info.getMaxCol() && c < widths.length; c++) {
+                width += widths[c] / 100 * tableWidth;
+            }
+            float height = 0;
+            for (int r = info.getMinRow(); r <= info.getMaxRow(); r++) {
+                Row row = sheet.getRow(r);
+                height += row != null ? row.getHeightInPoints() : sheet.getDefaultRowHeightInPoints();
+            }
+            pictureData.put(info, resampler.resampleAsync(info.getPictureData(), width, height));
+        }
+        return pictureData;
+    }
+
     private static void writeToFile(String pdfPath, ByteArrayOutputStream stream) throws IOException {
         byte[] pdfByte = stream.toByteArray();
         stream.flush();
@@ -288,57 +245,42 @@ public final class ExcelToPdfItextUtil {
     }
 
 
-    private static String getCellValue(Cell excelCell) {
-        String value = "";
-
-        if (excelCell != null) {
-            value = excelCell.toString().trim();
-            if (value.length() != 0) {
-                //获取excel单元格数据显示样式
-                String dataFormat = excelCell.getCellStyle().getDataFormatString();
-                //noinspection AlibabaUndefineMagicConstant
-                if (!"General".equals(dataFormat) && !"@".equals(dataFormat)) {
-                    try {
-                        String numStyle = getNumStyle(dataFormat);
-                        value = numFormat(numStyle, excelCell.getNumericCellValue());
-                    } catch (Exception ignored) {
-
-                    }
-                }
-            }
+    private static String getCellValue(Cell excelCell, RenderStyle style) {
+        if (excelCell == null) {
+            return "";
         }
-        return value;
+        //按excel单元格数据显示样式格式化
+        return style.getFormatter().format(excelCell);
     }
 
-    private static void setPdfCellBorderForMerged(Sheet sheet, int rowNum, int cellNum, int[] span, PdfPCell pCell) {
+    private static void setPdfCellBorderForMerged(Sheet sheet, RenderStyles styles, int rowNum, int cellNum, int[] span, PdfPCell pCell) {
         int rowSpan = span[0];
         int colSpan = span[1];
-        Cell leftTopCell = sheet.getRow(rowNum).getCell(cellNum);
-        Cell rightTopCell = sheet.getRow(rowNum).getCell(cellNum + colSpan - 1);
-        Cell leftBottomCell = sheet.getRow(rowNum + rowSpan - 1).getCell(cellNum);
-        Cell rightBottomCell = sheet.getRow(rowNum + rowSpan - 1).getCell(cellNum + colSpan - 1);
-        doSetBorders(pCell, leftTopCell, rightTopCell, leftBottomCell, rightBottomCell);
+        RenderStyle leftTop = styles.get(sheet.getRow(rowNum), cellNum);
+        RenderStyle rightTop = styles.get(sheet.getRow(rowNum), cellNum + colSpan - 1);
+        RenderStyle leftBottom = styles.get(sheet.getRow(rowNum + rowSpan - 1), cellNum);
+        RenderStyle rightBottom = styles.get(sheet.getRow(rowNum + rowSpan - 1), cellNum + colSpan - 1);
+        pCell.setBorder(toPdfCellBorder(RenderStyle.getMergedBorder(leftTop, rightTop, leftBottom, rightBottom)));
     }
 
-    private static void doSetBorders(PdfPCell pCell, Cell leftTopCell, Cell rightTopCell, Cell leftBottomCell, Cell rightBottomCell) {
-        int border = 0;
-        if (leftTopCell.getCellStyle().getBorderTopEnum().getCode() > 0) {
-            border += PdfPCell.TOP;
+    /**
+     * 将边框（上1 右2 下4 左8）转为itext单元格的边框
+     */
+    private static int toPdfCellBorder(int border) {
+        int pdfBorder = 0;
+        if ((border & 1) != 0) {
+            pdfBorder += PdfPCell.TOP;
         }
-        if (rightBottomCell.getCellStyle().getBorderBottomEnum().getCode() > 0) {
-            border += PdfPCell.BOTTOM;
+        if ((border & 4) != 0) {
+            pdfBorder += PdfPCell.BOTTOM;
         }
-        if (leftBottomCell.getCellStyle().getBorderLeftEnum().getCode() > 0) {
-            border += PdfPCell.LEFT;
+        if ((border & 8) != 0) {
+            pdfBorder += PdfPCell.LEFT;
         }
-        if (rightTopCell.getCellStyle().getBorderRightEnum().getCode() > 0) {
-            border += PdfPCell.RIGHT;
+        if ((border & 2) != 0) {
+            pdfBorder += PdfPCell.RIGHT;
         }
-        pCell.setBorder(border);
-    }
-
-    private static void setPdfCellBorder(Cell excelCell, PdfPCell pCell) {
-        doSetBorders(pCell, excelCell, excelCell, excelCell, excelCell);
+        return pdfBorder;
     }
 
     private static Workbook getWorkbook(String excelPath, InputStream in) throws IOException {
@@ -1,5 +1,6 @@
 package cn.gsein.toolkit.excel.util;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -13,9 +14,10 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.awt.Color;
 import java.io.*;
-import java.text.DecimalFormat;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -31,7 +33,6 @@ public final class ExcelToPdfPdfBoxUtil {
     private static final String XLS = ".xls";
     private static final String XLSX = ".xlsx";
     private static final String XLSM = ".xlsm";
-    private static final String PERCENT = "%";
 
     private static final float POINTS_PER_MM = 2.8346457f;
     private static final float PAGE_WIDTH = 210 * POINTS_PER_MM;
@@ -42,72 +43,6 @@ public final class ExcelToPdfPdfBoxUtil {
     private static final float CONTENT_WIDTH_PERCENT = 0.94f;
 
 
-    /**
-     * 获取字体
-     */
-    private static Font getExcelFont(Workbook workbook, Cell cell) {
-        int fontIndex = cell.getCellStyle().getFontIndexAsInt();
-        return workbook.getFontAt(fontIndex);
-    }
-
-
-    /**
-     * 获取excel单元格数据显示格式
-     */
-    private static String getNumStyle(String dataFormat) throws Exception {
-        if (dataFormat == null || dataFormat.length() == 0) {
-            throw new Exception("");
-        }
-        if (dataFormat.contains(PERCENT)) {
-            return dataFormat;
-        } else {
-            return dataFormat.substring(0, dataFormat.length() - 2);
-        }
-
-    }
-
-    /**
-     * 判断单元格是否是合并单元格
-     */
-    private static boolean isMergedRegion(Sheet sheet, int row, int column) {
-        int sheetMergeCount = sheet.getNumMergedRegions();
-        for (int i = 0; i < sheetMergeCount; i++) {
-            CellRangeAddress range = sheet.getMergedRegion(i);
-            int firstColumn = range.getFirstColumn();
-            int lastColumn = range.getLastColumn();
-            int firstRow = range.getFirstRow();
-            int lastRow = range.getLastRow();
-            if (row >= firstRow && row <= lastRow) {
-                if (column >= firstColumn && column <= lastColumn) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-
-    /**
-     * 计算合并单元格合并的跨行跨列数
-     */
-    private static int[] getMergedSpan(Sheet sheet, int row, int column) {
-        int sheetMergeCount = sheet.getNumMergedRegions();
-        int[] span = {1, 1};
-        for (int i = 0; i < sheetMergeCount; i++) {
-            CellRangeAddress range = sheet.getMergedRegion(i);
-            int firstColumn = range.getFirstColumn();
-            int lastColumn = range.getLastColumn();
-            int firstRow = range.getFirstRow();
-            int lastRow = range.getLastRow();
-            if (firstColumn == column && firstRow == row) {
-                span[0] = lastRow - firstRow + 1;
-                span[1] = lastColumn - firstColumn + 1;
-                break;
-            }
-        }
-        return span;
-    }
-
     /**
      * 获取excel中列数最多的行号
      */
@@ -124,14 +59,6 @@ public final class ExcelToPdfPdfBoxUtil {
         return rowNum;
     }
 
-    /**
-     * 格式化数字
-     */
-    private static String numFormat(String pattern, double num) {
-        DecimalFormat format = new DecimalFormat(pattern);
-        return format.format(num);
-    }
-
     /**
      * 获取excel中每列宽度的占比
      */
@@ -181,6 +108,21 @@ public final class ExcelToPdfPdfBoxUtil {
     }
 
     public static void excelToPdf(InputStream excelInput, OutputStream pdfOutput) throws Exception {
+        excelToPdf(excelInput, pdfOutput, MemoryUsageSetting.setupMainMemoryOnly());
+    }
+
+    /**
+     * 转换excel，pdf文档按memoryUsageSetting缓存，页数很多时可以使用临时文件以减少内存占用
+     */
+    public static void excelToPdf(InputStream excelInput, OutputStream pdfOutput, MemoryUsageSetting memoryUsageSetting) throws Exception {
+        excelToPdf(excelInput, pdfOutput, memoryUsageSetting, ImageOptions.ORIGINAL);
+    }
+
+    /**
+     * 转换excel，图片按imageOptions降采样和压缩
+     */
+    public static void excelToPdf(InputStream excelInput, OutputStream pdfOutput, MemoryUsageSetting memoryUsageSetting,
+                                  ImageOptions imageOptions) throws Exception {
 
         // 获取工作簿
         Workbook workbook = WorkbookFactory.create(excelInput);
@@ -189,79 +131,93 @@ public final class ExcelToPdfPdfBoxUtil {
         int sheetCount = workbook.getNumberOfSheets();
 
         //新建PDF文档
-        PDDocument document = new PDDocument();
-        for (int i = 0; i < sheetCount; i++) {
-
-            // 获取第i张工作表
-            Sheet sheet = workbook.getSheetAt(i);
-            // 不处理没有内容的sheet
-            if (sheet.getPhysicalNumberOfRows() == 0) {
-                continue;
-            }
+        try (PDDocument document = new PDDocument(memoryUsageSetting)) {
+            // 所有sheet共用一个字体，文档中只嵌入一份字体子集
+            PDType0Font font = FontRegistry.loadFont(document, FontRegistry.DEFAULT_FONT);
+            RenderStyles styles = RenderStyles.of(workbook);
+            // 相同的图片在文档中只嵌入一次
+            ImageXObjects images = new ImageXObjects(document);
+            ImageResampler resampler = new ImageResampler(imageOptions);
+            for (int i = 0; i < sheetCount; i++) {
+
+                // 获取第i张工作表
+                Sheet sheet = workbook.getSheetAt(i);
+                // 不处理没有内容的sheet
+                if (sheet.getPhysicalNumberOfRows() == 0) {
+                    continue;
+                }
 
-            PDPageContentStream stream = createPageAndContentStream(document);
+                PDPageContentStream stream = createPageAndContentStream(document);
 
-            // 从classpath中读取字体文件
-            PDType0Font font = loadFontFromClasspath(document);
+                // 设置默认字体、字号、颜色
+                setDefaultFontAndColor(stream, font);
 
-            // 设置默认字体、字号、颜色
-            setDefaultFontAndColor(stream, font);
+                // 获取每列的宽度（从excel宽度转为pdf宽度）
+                float[] excelWidths = getColWidth(sheet);
+                float[] widths = handleWidths(excelWidths);
 
-            // 获取每列的宽度（从excel宽度转为pdf宽度）
-            float[] excelWidths = getColWidth(sheet);
-            float[] widths = handleWidths(excelWidths);
+                // 获取每行的高度（从excel高度转为pdf高度）
+                float[] excelHeights = getRowHeight(sheet);
+                float[] heights = handleHeights(excelHeights);
 
-            // 获取每行的高度（从excel高度转为pdf高度）
-            float[] excelHeights = getRowHeight(sheet);
-            float[] heights = handleHeights(excelHeights);
+                // 列宽、行高的前缀和，单元格坐标由此直接查询
+                GridLayout layout = GridLayout.ofPoints(widths, heights);
 
-            // 先遍历行，再遍历列，对每一个单元格进行处理
-            int colCount = widths.length;
-            for (int rowNum = sheet.getFirstRowNum(); rowNum < sheet.getLastRowNum() + 1; rowNum++) {
-                Row row = sheet.getRow(rowNum);
-                if (row != null) {
-                    for (int cellNum = row.getFirstCellNum(); (cellNum < row.getLastCellNum() + 1 || cellNum < colCount) && cellNum > -1; cellNum++) {
-                        Cell excelCell = row.getCell(cellNum);
-                        // 获取单元格的值
-                        String value = getCellValue(excelCell);
+                // 文字和边框在整页绘制完后统一输出
+                PageText pageText = new PageText();
+                BorderPath borders = new BorderPath();
+
+                // 合并单元格索引
+                List<CellRangeAddress> regions = sheet.getMergedRegions();
+                MergedRegionIndex mergedRegions = MergedRegionIndex.of(regions);
+
+                // 需要绘制的单元格索引
+                CellIndex cells = CellIndex.of(sheet, regions);
 
-                        //设置单元格字体
-                        org.apache.poi.ss.usermodel.Font excelFont = getExcelFont(workbook, excelCell);
+                // 图片按锚点位置绘制，每张图片绘制一次
+                PictureIndex pictures = PictureIndex.of(sheet);
+                Map<PicturesInfo, CompletableFuture<byte[]>> pictureData = resample(resampler, pictures, layout);
+                for (PicturesInfo info : pictures.getPictures()) {
+                    drawImage(images, pictureData, stream, layout, info);
+                }
 
-                        // 单独处理图片
-                        List<PicturesInfo> infos = PoiExtend.getAllPictureInfos(sheet, rowNum, rowNum, cellNum, cellNum, false);
-                        drawImage(document, stream, widths, heights, rowNum, cellNum, infos);
+                // 先遍历行，再遍历列，只处理物理单元格和合并区域的左上角单元格，不存在的单元格不产生输出
+                for (int rowNum = sheet.getFirstRowNum(); rowNum < sheet.getLastRowNum() + 1; rowNum++) {
+                    Row row = sheet.getRow(rowNum);
+                    for (int cellNum : cells.getColumns(rowNum)) {
+                        Cell excelCell = row == null ? null : row.getCell(cellNum);
+                        RenderStyle style = styles.get(excelCell);
+                        // 获取单元格的值
+                        String value = getCellValue(excelCell, style);
 
                         // 判断是否有边框
-                        int border = getBorder(Objects.requireNonNull(excelCell));
+                        int border = style.getBorder();
 
                         // 判断是否为合并单元格，分别处理
-                        if (isMergedRegion(sheet, rowNum, cellNum)) {
-                            int[] span = getMergedSpan(sheet, rowNum, cellNum);
+                        if (mergedRegions.isMerged(rowNum, cellNum)) {
+                            int[] span = mergedRegions.getSpan(rowNum, cellNum);
                             //忽略合并过的单元格
                             if (span[0] == 1 && span[1] == 1) {
                                 continue;
                             }
-                            border = getPdfCellBorderForMerged(sheet, rowNum, cellNum, span);
-                            //合并过的列直接跳过
-                            PdfUtil.drawRect(stream, widths, heights, rowNum, cellNum, span[0], span[1], border);
-                            PdfUtil.drawString(font, stream, excelFont, widths, heights, rowNum, cellNum, span[0], span[1], value);
-                            cellNum = cellNum + span[1] - 1;
+                            border = getPdfCellBorderForMerged(sheet, styles, rowNum, cellNum, span);
+                            PdfUtil.drawRect(borders, layout, rowNum, cellNum, span[0], span[1], border);
+                            PdfUtil.drawString(font, pageText, style.getFontSize(), style.isBold(), layout, rowNum, cellNum, span[0], span[1], value);
                         } else {
 
                             // 非合并的单元格直接绘制
-                            PdfUtil.drawRect(stream, widths, heights, rowNum, cellNum, 1, 1, border);
-                            PdfUtil.drawString(font, stream, excelFont, widths, heights, rowNum, cellNum, 1, 1, value);
+                            PdfUtil.drawRect(borders, layout, rowNum, cellNum, 1, 1, border);
+                            PdfUtil.drawString(font, pageText, style.getFontSize(), style.isBold(), layout, rowNum, cellNum, 1, 1, value);
                         }
                     }
                 }
+                pageText.write(stream);
+                borders.stroke(stream);
+                stream.close();
             }
-            stream.stroke();
-            stream.close();
-        }
 
-        document.save(pdfOutput);
-        document.close();
+            document.save(pdfOutput);
+        }
 
     }
 
@@ -270,11 +226,6 @@ public final class ExcelToPdfPdfBoxUtil {
         stream.setStrokingColor(Color.BLACK);
     }
 
-    private static PDType0Font loadFontFromClasspath(PDDocument document) throws IOException {
-        InputStream inputStream = ExcelToPdfPdfBoxUtil.class.getClassLoader().getResourceAsStream("font/STXIHEI.TTF");
-        return PDType0Font.load(document, inputStream, true);
-    }
-
     private static PDPageContentStream createPageAndContentStream(PDDocument document) throws IOException {
         // 设置页面大小为A4纸
         PDPage page = new PDPage(PDRectangle.A4);
@@ -286,40 +237,30 @@ public final class ExcelToPdfPdfBoxUtil {
         return new PDPageContentStream(document, page);
     }
 
-    private static void drawImage(PDDocument document, PDPageContentStream stream, float[] widths, float[] heights, int rowNum, int cellNum, List<PicturesInfo> infos) throws IOException {
-        if (!infos.isEmpty()) {
-            // 目前只处理第一张图片
-            PicturesInfo info = infos.get(0);
-
-            // 左上角坐标
-            float x = 29.76f;
-            float y = PAGE_HEIGHT - 15f;
-
-            // 图片起始X坐标
-            for (int j = 0; j < cellNum; j++) {
-                x += widths[j];
-            }
-
-            // 图片宽度
-            float width = 0;
-            for (int j = cellNum; j < cellNum + info.getMaxCol() - info.getMinCol() + 1; j++) {
-                width += widths[j];
-            }
-
-            // 图片起始Y坐标
-            for (int j = 0; j < rowNum; j++) {
-                y -= heights[j];
-            }
-
-            // 图片高度
-            float height = 0;
-            for (int j = rowNum; j < rowNum + info.getMaxRow() - info.getMinRow() + 1; j++) {
-                height += heights[j];
-            }
-
-            // 绘制图片
-            stream.drawImage(PDImageXObject.createFromByteArray(document, info.getPictureData(), null), x, y - height, width, height);
+    /**
+     * 在后台线程中按图片所占的大小处理sheet中的全部图片，图片内容在当前线程中读取
+     */
+    private static Map<PicturesInfo, CompletableFuture<byte[]>> resample(ImageResampler resampler, PictureIndex pictures, GridLayout layout) {
+        Map<PicturesInfo, CompletableFuture<byte[]>> pictureData = new IdentityHashMap<>();
+        for (PicturesInfo info : pictures.getPictures()) {
+            float width = layout.getWidth(info.getMinCol(), info.getMaxCol() - info.getMinCol() + 1);
+            float height = layout.getHeight(info.getMinRow(), info.getMaxRow() - info.getMinRow() + 1);
+            pictureData.put(info, resampler.resampleAsync(info.getPictureData(), width, height));
         }
+        return pictureData;
+    }
+
+    private static void drawImage(ImageXObjects images, Map<PicturesInfo, CompletableFuture<byte[]>> pictureData,
+                                  PDPageContentStream stream, GridLayout layout, PicturesInfo info) throws IOException {
+        // 图片左上角坐标及宽高
+        float x = 29.76f + layout.getX(info.getMinCol());
+        float y = PAGE_HEIGHT - 15f - layout.getY(info.getMinRow());
+        float width = layout.getWidth(info.getMinCol(), info.getMaxCol() - info.getMinCol() + 1);
+        float height = layout.getHeight(info.getMinRow(), info.getMaxRow() - info.getMinRow() + 1);
+
+        // 绘制图片
+        PDImageXObject image = images.get(pictureData.get(info).join());
+        stream.drawImage(image, x, y - height, width, height);
     }
 
     public static void excelToPdf(String excelPath, String pdfPath) throws Exception {
@@ -345,57 +286,22 @@ public final class ExcelToPdfPdfBoxUtil {
     }
 
 
-    private static String getCellValue(Cell excelCell) {
-        String value = "";
-
-        if (excelCell != null) {
-            value = excelCell.toString().trim();
-            if (value.length() != 0) {
-                //获取excel单元格数据显示样式
-                String dataFormat = excelCell.getCellStyle().getDataFormatString();
-                //noinspection AlibabaUndefineMagicConstant
-                if (!"General".equals(dataFormat) && !"@".equals(dataFormat)) {
-                    try {
-                        String numStyle = getNumStyle(dataFormat);
-                        value = numFormat(numStyle, excelCell.getNumericCellValue());
-                    } catch (Exception ignored) {
-
-                    }
-                }
-            }
+    private static String getCellValue(Cell excelCell, RenderStyle style) {
+        if (excelCell == null) {
+            return "";
         }
-        return value;
+        //按excel单元格数据显示样式格式化
+        return style.getFormatter().format(excelCell);
     }
 
-    private static int getPdfCellBorderForMerged(Sheet sheet, int rowNum, int cellNum, int[] span) {
+    private static int getPdfCellBorderForMerged(Sheet sheet, RenderStyles styles, int rowNum, int cellNum, int[] span) {
         int rowSpan = span[0];
         int colSpan = span[1];
-        Cell leftTopCell = sheet.getRow(rowNum).getCell(cellNum);
-        Cell rightTopCell = sheet.getRow(rowNum).getCell(cellNum + colSpan - 1);
-        Cell leftBottomCell = sheet.getRow(rowNum + rowSpan - 1).getCell(cellNum);
-        Cell rightBottomCell = sheet.getRow(rowNum + rowSpan - 1).getCell(cellNum + colSpan - 1);
-        return getBorder(leftTopCell, rightTopCell, leftBottomCell, rightBottomCell);
-    }
-
-    private static int getBorder(Cell leftTopCell, Cell rightTopCell, Cell leftBottomCell, Cell rightBottomCell) {
-        int border = 0;
-        if (leftTopCell.getCellStyle().getBorderTopEnum().getCode() > 0) {
-            border += 1;
-        }
-        if (rightBottomCell.getCellStyle().getBorderBottomEnum().getCode() > 0) {
-            border += 4;
-        }
-        if (leftBottomCell.getCellStyle().getBorderLeftEnum().getCode() > 0) {
-            border += 8;
-        }
-        if (rightTopCell.getCellStyle().getBorderRightEnum().getCode() > 0) {
-            border += 2;
-        }
-        return border;
-    }
-
-    private static int getBorder(Cell excelCell) {
-        return getBorder(excelCell, excelCell, excelCell, excelCell);
+        RenderStyle leftTop = styles.get(sheet.getRow(rowNum), cellNum);
+        RenderStyle rightTop = styles.get(sheet.getRow(rowNum), cellNum + colSpan - 1);
+        RenderStyle leftBottom = styles.get(sheet.getRow(rowNum + rowSpan - 1), cellNum);
+        RenderStyle rightBottom = styles.get(sheet.getRow(rowNum + rowSpan - 1), cellNum + colSpan - 1);
+        return RenderStyle.getMergedBorder(leftTop, rightTop, leftBottom, rightBottom);
     }
 
     private static Workbook getWorkbook(String excelPath, InputStream in) throws IOException {
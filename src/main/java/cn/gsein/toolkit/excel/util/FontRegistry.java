@@ -0,0 +1,108 @@
+package cn.gsein.toolkit.excel.util;
+
+import cn.gsein.toolkit.excel.jfr.ConversionEvents;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.BaseFont;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 进程级的字体注册表
+ * <p>
+ * classpath中的字体文件在整个JVM中只读取、解析一次，之后各文档、各线程共用解析结果。
+ * pdfbox的TrueTypeFont按表加锁读取，可以被多个文档同时使用；每个文档通过{@link #loadFont(PDDocument, String)}
+ * 得到自己的PDType0Font，保存时只嵌入该文档用到的字形子集。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-22
+ */
+public final class FontRegistry {
+    private FontRegistry() {
+    }
+
+    /**
+     * 默认的中文字体
+     */
+    public static final String DEFAULT_FONT = "font/STXIHEI.TTF";
+
+    private static final ConcurrentMap<String, TrueTypeFont> TRUE_TYPE_FONTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, BaseFont> BASE_FONTS = new ConcurrentHashMap<>();
+
+    /**
+     * 为文档加载字体，字体按子集嵌入。同一文档的所有sheet应共用返回的字体对象，以保证文档中只有一份字体子集
+     */
+    public static PDType0Font loadFont(PDDocument document, String path) throws IOException {
+        Object event = ConversionEvents.beginFontLoad();
+        boolean parsed = !TRUE_TYPE_FONTS.containsKey(path);
+        TrueTypeFont trueTypeFont = getTrueTypeFont(path);
+        PDType0Font font = PDType0Font.load(document, trueTypeFont, true);
+        ConversionEvents.endFontLoad(event, path, parsed, trueTypeFont.getNumberOfGlyphs());
+        return font;
+    }
+
+    /**
+     * 获取解析后的TrueType字体，由注册表持有，调用方不应关闭
+     */
+    public static TrueTypeFont getTrueTypeFont(String path) throws IOException {
+        try {
+            return TRUE_TYPE_FONTS.computeIfAbsent(path, key -> {
+                try (InputStream in = openFont(key)) {
+                    return new TTFParser().parse(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 获取itext使用的字体（Identity-H编码、嵌入）
+     */
+    public static BaseFont getBaseFont(String path) throws IOException {
+        try {
+            return BASE_FONTS.computeIfAbsent(path, key -> {
+                try {
+                    return BaseFont.createFont(key, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, false, readFont(key), null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (DocumentException e) {
+                    throw new UncheckedIOException(new IOException(e));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static InputStream openFont(String path) throws FileNotFoundException {
+        InputStream in = FontRegistry.class.getClassLoader().getResourceAsStream(path);
+        if (in == null) {
+            throw new FileNotFoundException(path);
+        }
+        return in;
+    }
+
+    private static byte[] readFont(String path) throws IOException {
+        try (InputStream in = openFont(path)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.font.PDCIDFont;
+import org.apache.pdfbox.pdmodel.font.PDCIDFontType2;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 字体的字形宽度表，按码点缓存每个字符的宽度（1/1000字号）
+ * <p>
+ * 每个TrueType字体文件对应一张表（见{@link #of(TrueTypeFont)}），与{@link FontRegistry}中解析好的字体一样
+ * 在整个JVM中共用，不引用任何文档或PDFont。表按256个码点分页、用到时才分配。
+ * 命中时测量字符串不分配对象也不加锁；未命中时由cmap表查出字形，再从hmtx表读取宽度写入表中，
+ * 结果与pdfbox的PDType0Font.getStringWidth一致。
+ * 表中的0表示尚未测量，多个线程同时写入同一位置时写入的是同一个值，因此不需要其他同步。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class GlyphWidths {
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final ConcurrentMap<TrueTypeFont, GlyphWidths> TABLES = new ConcurrentHashMap<>();
+
+    private final TrueTypeFont font;
+    private final float[][] pages = new float[(Character.MAX_CODE_POINT >> PAGE_BITS) + 1][];
+
+    private GlyphWidths(TrueTypeFont font) {
+        this.font = font;
+    }
+
+    /**
+     * 获取TrueType字体的字形宽度表
+     */
+    public static GlyphWidths of(TrueTypeFont font) {
+        return TABLES.computeIfAbsent(font, GlyphWidths::new);
+    }
+
+    /**
+     * 获取PDFont所用TrueType字体的字形宽度表，只支持由{@link FontRegistry#loadFont}加载的Type0字体
+     */
+    public static GlyphWidths of(PDFont font) {
+        return of(getTrueTypeFont(font));
+    }
+
+    /**
+     * PDFont所用的TrueType字体，各文档由同一个字体文件加载的PDFont返回同一个对象
+     */
+    static TrueTypeFont getTrueTypeFont(PDFont font) {
+        if (font instanceof PDType0Font) {
+            PDCIDFont descendant = ((PDType0Font) font).getDescendantFont();
+            if (descendant instanceof PDCIDFontType2) {
+                return ((PDCIDFontType2) descendant).getTrueTypeFont();
+            }
+        }
+        throw new IllegalArgumentException("不支持的字体类型：" + font.getName());
+    }
+
+    /**
+     * 字符串的宽度（磅），与{@code font.getStringWidth(text) / 1000f * fontSize}一致
+     */
+    public float getStringWidth(CharSequence text, float fontSize) throws IOException {
+        return getStringWidth(text, 0, text.length()) / 1000f * fontSize;
+    }
+
+    /**
+     * 字符串[start, end)部分的宽度（1/1000字号）
+     */
+    public float getStringWidth(CharSequence text, int start, int end) throws IOException {
+        float width = 0;
+        int i = start;
+        while (i < end) {
+            int codePoint = Character.codePointAt(text, i);
+            width += getWidth(codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return width;
+    }
+
+    /**
+     * 单个字符的宽度（1/1000字号）
+     */
+    public float getWidth(int codePoint) throws IOException {
+        float[] page = pages[codePoint >> PAGE_BITS];
+        if (page == null) {
+            page = new float[PAGE_SIZE];
+            pages[codePoint >> PAGE_BITS] = page;
+        }
+        float width = page[codePoint & (PAGE_SIZE - 1)];
+        if (width == 0) {
+            // 宽度为0的字形每次都会重新测量，这类字形很少见
+            width = measure(codePoint);
+            page[codePoint & (PAGE_SIZE - 1)] = width;
+        }
+        return width;
+    }
+
+    /**
+     * 从字体的hmtx表读取宽度，字体中没有该字符时与pdfbox一样抛出IllegalArgumentException
+     */
+    private float measure(int codePoint) throws IOException {
+        CmapLookup cmap = font.getUnicodeCmapLookup(false);
+        int glyphId = cmap.getGlyphId(codePoint);
+        if (glyphId == 0) {
+            throw new IllegalArgumentException(String.format("No glyph for U+%04X in font %s", codePoint, font.getName()));
+        }
+        // pdfbox嵌入字体时把宽度取整后写入W数组，测量时使用取整后的值
+        return Math.round(font.getAdvanceWidth(glyphId) * 1000f / font.getUnitsPerEm());
+    }
+}
@@ -0,0 +1,174 @@
+package cn.gsein.toolkit.excel.util;
+
+import java.util.Arrays;
+
+/**
+ * 表格的版面：列宽、行高的前缀和（单位：磅）
+ * <p>
+ * 创建时一次性累加列宽和行高，之后任意单元格的位置和大小都是O(1)查询。
+ * 行号、列号均为sheet中的绝对行号、列号，超出范围的行列按宽高为0处理。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class GridLayout {
+
+    private final int firstColumn;
+    private final int firstRow;
+    /**
+     * columnOffsets[i]为第firstColumn + i列左边缘到第firstColumn列左边缘的距离，长度为列数 + 1
+     */
+    private final double[] columnOffsets;
+    /**
+     * rowOffsets[i]为第firstRow + i行上边缘到第firstRow行上边缘的距离，长度为行数 + 1
+     */
+    private final double[] rowOffsets;
+
+    private GridLayout(int firstColumn, double[] columnOffsets, int firstRow, double[] rowOffsets) {
+        this.firstColumn = firstColumn;
+        this.columnOffsets = columnOffsets;
+        this.firstRow = firstRow;
+        this.rowOffsets = rowOffsets;
+    }
+
+    /**
+     * 由excel的列宽（1/256字符）和行高（1/20磅）创建，数组下标0分别对应firstColumn列和firstRow行
+     */
+    public static GridLayout of(int[] columnWidths, int firstColumn, int[] rowHeights, int firstRow) {
+        double[] columnOffsets = new double[columnWidths.length + 1];
+        for (int i = 0; i < columnWidths.length; i++) {
+            columnOffsets[i + 1] = columnOffsets[i] + columnWidths[i] * 1.0f / 256 * 8;
+        }
+        double[] rowOffsets = new double[rowHeights.length + 1];
+        for (int i = 0; i < rowHeights.length; i++) {
+            rowOffsets[i + 1] = rowOffsets[i] + rowHeights[i] * 1.5f / 256 * 8;
+        }
+        return new GridLayout(firstColumn, columnOffsets, firstRow, rowOffsets);
+    }
+
+    /**
+     * 由excel的列宽和行高创建，数组下标即列号、行号
+     */
+    public static GridLayout of(int[] columnWidths, int[] rowHeights) {
+        return of(columnWidths, 0, rowHeights, 0);
+    }
+
+    /**
+     * 由以磅为单位的列宽和行高创建，数组下标即列号、行号
+     */
+    public static GridLayout ofPoints(float[] columnWidths, float[] rowHeights) {
+        double[] columnOffsets = new double[columnWidths.length + 1];
+        for (int i = 0; i < columnWidths.length; i++) {
+            columnOffsets[i + 1] = columnOffsets[i] + columnWidths[i];
+        }
+        double[] rowOffsets = new double[rowHeights.length + 1];
+        for (int i = 0; i < rowHeights.length; i++) {
+            rowOffsets[i + 1] = rowOffsets[i] + rowHeights[i];
+        }
+        return new GridLayout(0, columnOffsets, 0, rowOffsets);
+    }
+
+    public int getFirstColumn() {
+        return firstColumn;
+    }
+
+    /**
+     * 最后一列的下一列
+     */
+    public int getEndColumn() {
+        return firstColumn + columnOffsets.length - 1;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * 最后一行的下一行
+     */
+    public int getEndRow() {
+        return firstRow + rowOffsets.length - 1;
+    }
+
+    /**
+     * 第column列左边缘相对第firstColumn列的横向距离
+     */
+    public float getX(int column) {
+        return (float) offset(columnOffsets, column - firstColumn);
+    }
+
+    /**
+     * 第column列左边缘相对第fromColumn列左边缘的横向距离
+     */
+    public float getX(int fromColumn, int column) {
+        return (float) (offset(columnOffsets, column - firstColumn) - offset(columnOffsets, fromColumn - firstColumn));
+    }
+
+    /**
+     * 从第column列开始、跨colSpan列的宽度
+     */
+    public float getWidth(int column, int colSpan) {
+        return getX(column, column + colSpan);
+    }
+
+    /**
+     * 第row行上边缘相对第firstRow行的纵向距离
+     */
+    public float getY(int row) {
+        return (float) offset(rowOffsets, row - firstRow);
+    }
+
+    /**
+     * 第row行上边缘相对第fromRow行上边缘的纵向距离
+     */
+    public float getY(int fromRow, int row) {
+        return (float) (offset(rowOffsets, row - firstRow) - offset(rowOffsets, fromRow - firstRow));
+    }
+
+    /**
+     * 从第row行开始、跨rowSpan行的高度
+     */
+    public float getHeight(int row, int rowSpan) {
+        return getY(row, row + rowSpan);
+    }
+
+    /**
+     * 按页面宽度拆分列，返回每页的起始列号，最后一个元素为{@link #getEndColumn()}。每页至少一列
+     */
+    public int[] splitColumns(float pageWidth) {
+        return split(columnOffsets, firstColumn, pageWidth);
+    }
+
+    /**
+     * 按页面高度拆分行，返回每页的起始行号，最后一个元素为{@link #getEndRow()}。每页至少一行
+     */
+    public int[] splitRows(float pageHeight) {
+        return split(rowOffsets, firstRow, pageHeight);
+    }
+
+    private static double offset(double[] offsets, int index) {
+        if (index <= 0) {
+            return 0;
+        }
+        return offsets[Math.min(index, offsets.length - 1)];
+    }
+
+    private static int[] split(double[] offsets, int first, float limit) {
+        int count = offsets.length - 1;
+        int[] breaks = new int[count + 1];
+        int size = 0;
+        int start = 0;
+        breaks[size++] = first;
+        for (int i = 1; i < count; i++) {
+            // 加上第i个后超出页面则从第i个开始新的一页
+            if (offsets[i + 1] - offsets[start] > limit) {
+                breaks[size++] = first + i;
+                start = i;
+            }
+        }
+        if (count > 0) {
+            breaks[size++] = first + count;
+        }
+        return Arrays.copyOf(breaks, size);
+    }
+}
@@ -0,0 +1,48 @@
+package cn.gsein.toolkit.excel.util;
+
+import lombok.Builder;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 图片的降采样和压缩方式
+ * <p>
+ * dpi大于0时，按图片在pdf中所占的大小计算目标像素数，超过目标的图片缩小后重新压缩：
+ * 不透明的图片压缩为JPEG，带透明通道的图片或lossless为true时压缩为PNG（在pdf中为Flate）。
+ * 重新压缩后反而更大时使用原图。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+@Builder
+public class ImageOptions {
+
+    /**
+     * 保留原图
+     */
+    public static final ImageOptions ORIGINAL = ImageOptions.builder().build();
+
+    /**
+     * 目标分辨率（每英寸像素数），0表示不降采样
+     */
+    @Builder.Default
+    public int dpi = 0;
+
+    /**
+     * JPEG压缩质量，0~1
+     */
+    @Builder.Default
+    public float jpegQuality = 0.8f;
+
+    /**
+     * 是否只使用无损压缩
+     */
+    @Builder.Default
+    public boolean lossless = false;
+
+    /**
+     * 解码、缩放图片使用的线程池，由调用方管理生命周期；为空时使用ForkJoinPool.commonPool()
+     */
+    public ExecutorService executor;
+
+}
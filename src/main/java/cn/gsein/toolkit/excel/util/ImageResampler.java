@@ -0,0 +1,150 @@
+package cn.gsein.toolkit.excel.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 按{@link ImageOptions}对图片降采样并重新压缩
+ * <p>
+ * 先只读取图片头得到原图大小，不超过目标像素数时直接使用原图。需要缩小时按整数倍跳行跳列解码到目标的2倍左右，
+ * 再逐次减半平滑缩放到目标大小，解码大图时不必在内存中展开全部像素。无法解码的图片（如emf、wmf）使用原图。
+ * 解码和压缩在{@link ImageOptions#executor}中进行，不占用绘制页面的线程。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+final class ImageResampler {
+
+    private static final float POINTS_PER_INCH = 72f;
+
+    private final ImageOptions options;
+
+    ImageResampler(ImageOptions options) {
+        this.options = options;
+    }
+
+    boolean isEnabled() {
+        return options.dpi > 0;
+    }
+
+    /**
+     * 在后台线程中处理图片，width、height为图片在pdf中所占的大小（磅）；不降采样或大小未知时直接返回原图
+     */
+    CompletableFuture<byte[]> resampleAsync(byte[] data, float width, float height) {
+        if (!isEnabled() || width <= 0 || height <= 0) {
+            return CompletableFuture.completedFuture(data);
+        }
+        Executor executor = options.executor != null ? options.executor : ForkJoinPool.commonPool();
+        return CompletableFuture.supplyAsync(() -> resample(data, width, height), executor);
+    }
+
+    /**
+     * 处理图片，返回JPEG或PNG格式的图片内容，不需要或不能处理时返回原图
+     */
+    byte[] resample(byte[] data, float width, float height) {
+        try {
+            byte[] resampled = doResample(data, width, height);
+            return resampled != null && resampled.length < data.length ? resampled : data;
+        } catch (IOException | RuntimeException e) {
+            return data;
+        }
+    }
+
+    private byte[] doResample(byte[] data, float width, float height) throws IOException {
+        int targetWidth = Math.max(1, (int) Math.ceil(width / POINTS_PER_INCH * options.dpi));
+        int targetHeight = Math.max(1, (int) Math.ceil(height / POINTS_PER_INCH * options.dpi));
+        BufferedImage image;
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                // 等比缩放，两个方向的分辨率都不低于目标
+                double scale = Math.max((double) targetWidth / sourceWidth, (double) targetHeight / sourceHeight);
+                if (scale >= 1) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = (int) (1 / (2 * scale));
+                if (subsampling >= 2) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                image = reader.read(0, param);
+                targetWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+                targetHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+            } finally {
+                reader.dispose();
+            }
+        }
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage scaled = scale(image, targetWidth, targetHeight,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        return alpha || options.lossless ? writePng(scaled) : writeJpeg(scaled);
+    }
+
+    /**
+     * 逐次减半缩放，每次使用双线性插值
+     */
+    private static BufferedImage scale(BufferedImage image, int targetWidth, int targetHeight, int type) {
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private byte[] writeJpeg(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            return null;
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(Math.max(0f, Math.min(1f, options.jpegQuality)));
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] writePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        return ImageIO.write(image, "png", out) ? out.toByteArray() : null;
+    }
+}
@@ -0,0 +1,59 @@
+package cn.gsein.toolkit.excel.util;
+
+import cn.gsein.toolkit.excel.jfr.ConversionEvents;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.util.Hex;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一个文档中的图片XObject
+ * <p>
+ * 按图片内容的SHA-256缓存，相同的图片（如每个sheet中都有的logo）只解码、写入一次，
+ * 之后绘制时引用同一个XObject。每个文档使用一个实例，不能在多个线程中共用。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class ImageXObjects {
+
+    private final PDDocument document;
+    private final MessageDigest digest;
+    private final Map<String, PDImageXObject> images = new HashMap<>();
+
+    public ImageXObjects(PDDocument document) {
+        this.document = document;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 获取图片对应的XObject，图片第一次出现时创建
+     */
+    public PDImageXObject get(byte[] pictureData) throws IOException {
+        String key = Hex.getString(digest.digest(pictureData));
+        PDImageXObject image = images.get(key);
+        if (image == null) {
+            Object event = ConversionEvents.beginImageEmbed();
+            image = PDImageXObject.createFromByteArray(document, pictureData, null);
+            ConversionEvents.endImageEmbed(event, pictureData.length, image.getWidth(), image.getHeight());
+            images.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * 不同图片的数量
+     */
+    public int size() {
+        return images.size();
+    }
+}
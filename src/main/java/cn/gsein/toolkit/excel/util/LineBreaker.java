@@ -0,0 +1,321 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 单元格文字的自动换行
+ * <p>
+ * 直接在原字符串的字符下标上断行，断行过程中不创建子串。换行规则：
+ * <ul>
+ * <li>\n、\r、\r\n处强制换行</li>
+ * <li>空白之后、中日韩文字前后、“/”之前可以换行</li>
+ * <li>行首不出现右括号、句读等标点，行尾不出现左括号、左引号（避头尾）</li>
+ * <li>单词中间没有可换行的位置时，整个单词放在一行，允许超出行宽</li>
+ * </ul>
+ * 每个TrueType字体文件对应一个实例（见{@link #of(PDFont)}），与{@link GlyphWidths}一样在各文档间共用，
+ * 断行结果按（文字、行宽、字号）缓存。查询缓存使用每个线程复用的键，命中时不分配对象。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class LineBreaker {
+
+    /**
+     * 行首禁则：不能出现在行首的字符
+     */
+    private static final String NO_BREAK_BEFORE = ")]}>,.;:?!%"
+            + "、。，．；：？！％）］｝"
+            + "》〉」』】〕〗’”…ー々";
+    /**
+     * 行尾禁则：不能出现在行尾的字符
+     */
+    private static final String NO_BREAK_AFTER = "([{<"
+            + "（［｛《〈「『【〔〖‘“";
+
+    private static final int MAX_CACHED_LAYOUTS = 8192;
+
+    private static final ConcurrentMap<TrueTypeFont, LineBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    /**
+     * 查询缓存用的键，每个线程一个，不放入缓存
+     */
+    private static final ThreadLocal<Key> PROBE = ThreadLocal.withInitial(Key::new);
+
+    private final GlyphWidths glyphWidths;
+    private final ConcurrentMap<Key, TextLines> cache = new ConcurrentHashMap<>();
+
+    private LineBreaker(TrueTypeFont font) {
+        this.glyphWidths = GlyphWidths.of(font);
+    }
+
+    /**
+     * 获取字体对应的断行器，只支持由{@link FontRegistry#loadFont}加载的Type0字体
+     */
+    public static LineBreaker of(PDFont font) {
+        return BREAKERS.computeIfAbsent(GlyphWidths.getTrueTypeFont(font), LineBreaker::new);
+    }
+
+    /**
+     * 按行宽断行，每行去掉首尾空白
+     *
+     * @param text     文字
+     * @param fontSize 字号
+     * @param maxWidth 行宽（磅）
+     */
+    public TextLines breakLines(String text, float fontSize, float maxWidth) throws IOException {
+        TextLines lines = cache.get(PROBE.get().set(text, fontSize, maxWidth));
+        if (lines == null) {
+            lines = doBreakLines(text, fontSize, maxWidth);
+            if (cache.size() >= MAX_CACHED_LAYOUTS) {
+                cache.clear();
+            }
+            cache.put(new Key().set(text, fontSize, maxWidth), lines);
+        }
+        return lines;
+    }
+
+    private TextLines doBreakLines(String text, float fontSize, float maxWidth) throws IOException {
+        // 以1/1000字号为单位比较，避免逐字符换算
+        float limit = maxWidth * 1000f / fontSize;
+        Builder builder = new Builder();
+        int length = text.length();
+        int start = 0;
+        while (start <= length) {
+            int end = start;
+            while (end < length && !isLineFeed(text.charAt(end))) {
+                end++;
+            }
+            breakParagraph(text, start, end, limit, builder);
+            if (end < length && text.charAt(end) == '\r' && end + 1 < length && text.charAt(end + 1) == '\n') {
+                end++;
+            }
+            start = end + 1;
+        }
+        // 与String.split一致：去掉末尾的空行，但至少保留一行
+        while (builder.size > 1 && builder.offsets[2 * builder.size - 2] == builder.offsets[2 * builder.size - 1]) {
+            builder.size--;
+        }
+        return builder.build(text, fontSize);
+    }
+
+    /**
+     * 对不含换行符的一段文字[start, end)断行
+     */
+    private void breakParagraph(String text, int start, int end, float limit, Builder builder) throws IOException {
+        int lineStart = skipWhitespace(text, start, end);
+        if (lineStart == end) {
+            builder.add(lineStart, lineStart, 0);
+            return;
+        }
+        while (lineStart < end) {
+            float width = 0;
+            // 当前行最后一个可换行的位置
+            int breakAt = -1;
+            int i = lineStart;
+            boolean overflow = false;
+            while (i < end) {
+                int codePoint = text.codePointAt(i);
+                if (i > lineStart && canBreakBefore(text, i, codePoint)) {
+                    breakAt = i;
+                }
+                float advance = glyphWidths.getWidth(codePoint);
+                if (width + advance > limit && i > lineStart && !Character.isWhitespace(codePoint)) {
+                    overflow = true;
+                    break;
+                }
+                width += advance;
+                i += Character.charCount(codePoint);
+            }
+            if (!overflow) {
+                addLine(text, lineStart, trimEnd(text, lineStart, end), builder);
+                return;
+            }
+            if (breakAt < 0) {
+                // 行首的单词已超出行宽，在单词之后换行
+                breakAt = nextBreak(text, i, end);
+            }
+            addLine(text, lineStart, trimEnd(text, lineStart, breakAt), builder);
+            lineStart = skipWhitespace(text, breakAt, end);
+        }
+    }
+
+    /**
+     * index及之后第一个可换行的位置，没有时返回end
+     */
+    private static int nextBreak(String text, int index, int end) {
+        int i = index;
+        while (i < end) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isWhitespace(codePoint) || canBreakBefore(text, i, codePoint)) {
+                return i;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return end;
+    }
+
+    private void addLine(String text, int start, int end, Builder builder) throws IOException {
+        builder.add(start, end, glyphWidths.getStringWidth(text, start, end));
+    }
+
+    private static boolean canBreakBefore(String text, int index, int codePoint) {
+        if (Character.isWhitespace(codePoint) || NO_BREAK_BEFORE.indexOf(codePoint) >= 0) {
+            return false;
+        }
+        int previous = text.codePointBefore(index);
+        if (Character.isWhitespace(previous)) {
+            return true;
+        }
+        if (NO_BREAK_AFTER.indexOf(previous) >= 0) {
+            return false;
+        }
+        return isCjk(previous) || isCjk(codePoint) || codePoint == '/';
+    }
+
+    private static boolean isCjk(int codePoint) {
+        if (codePoint < 0x2e80) {
+            return false;
+        }
+        // 中日韩符号和标点、全角字符
+        if ((codePoint >= 0x3000 && codePoint <= 0x303f) || (codePoint >= 0xff00 && codePoint <= 0xffef)) {
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static boolean isLineFeed(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private static int skipWhitespace(String text, int start, int end) {
+        int i = start;
+        while (i < end && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimEnd(String text, int start, int end) {
+        int i = end;
+        while (i > start && Character.isWhitespace(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * 断行结果：各行在原字符串中的起止下标及行宽，不可变
+     */
+    public static final class TextLines {
+        private final String text;
+        private final int[] offsets;
+        private final float[] widths;
+
+        private TextLines(String text, int[] offsets, float[] widths) {
+            this.text = text;
+            this.offsets = offsets;
+            this.widths = widths;
+        }
+
+        /**
+         * 行数
+         */
+        public int size() {
+            return widths.length;
+        }
+
+        public int getStart(int line) {
+            return offsets[2 * line];
+        }
+
+        public int getEnd(int line) {
+            return offsets[2 * line + 1];
+        }
+
+        /**
+         * 第line行的文字
+         */
+        public String getLine(int line) {
+            return text.substring(getStart(line), getEnd(line));
+        }
+
+        /**
+         * 第line行的宽度（磅）
+         */
+        public float getWidth(int line) {
+            return widths[line];
+        }
+    }
+
+    private static final class Builder {
+        private int[] offsets = new int[8];
+        private float[] widths = new float[4];
+        private int size;
+
+        private void add(int start, int end, float width) {
+            if (size == widths.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                widths = Arrays.copyOf(widths, widths.length * 2);
+            }
+            offsets[2 * size] = start;
+            offsets[2 * size + 1] = end;
+            widths[size] = width;
+            size++;
+        }
+
+        private TextLines build(String text, float fontSize) {
+            float[] lineWidths = new float[size];
+            for (int i = 0; i < size; i++) {
+                lineWidths[i] = widths[i] / 1000f * fontSize;
+            }
+            return new TextLines(text, Arrays.copyOf(offsets, 2 * size), lineWidths);
+        }
+    }
+
+    /**
+     * 缓存键。放入缓存的键设置后不再修改，只有线程自己的查询键会被重复设置
+     */
+    private static final class Key {
+        private String text;
+        private float fontSize;
+        private float maxWidth;
+        private int hash;
+
+        private Key set(String text, float fontSize, float maxWidth) {
+            this.text = text;
+            this.fontSize = fontSize;
+            this.maxWidth = maxWidth;
+            int result = text.hashCode();
+            result = 31 * result + Float.floatToIntBits(fontSize);
+            result = 31 * result + Float.floatToIntBits(maxWidth);
+            this.hash = result;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Float.compare(key.fontSize, fontSize) == 0 && Float.compare(key.maxWidth, maxWidth) == 0
+                    && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * sheet合并单元格索引，每个sheet只构建一次
+ * <p>
+ * 合并区域按左上角单元格建立散列索引，同时按固定大小的网格分桶。
+ * 由于excel中的合并区域互不重叠，每个桶中的区域数量很少，查询近似O(1)。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-20
+ */
+public final class MergedRegionIndex {
+
+    /**
+     * 网格桶大小（2的幂，按位移计算）
+     */
+    private static final int BUCKET_SHIFT = 5;
+
+    private static final int[] NO_SPAN = {1, 1};
+
+    /**
+     * 左上角单元格 -> 合并区域
+     */
+    private final Map<Long, CellRangeAddress> anchors;
+
+    /**
+     * 网格桶 -> 与该桶相交的合并区域
+     */
+    private final Map<Long, List<CellRangeAddress>> buckets;
+
+    private MergedRegionIndex(List<CellRangeAddress> regions) {
+        this.anchors = new HashMap<>(regions.size() * 2);
+        this.buckets = new HashMap<>();
+        for (CellRangeAddress region : regions) {
+            anchors.put(key(region.getFirstRow(), region.getFirstColumn()), region);
+            for (int r = region.getFirstRow() >> BUCKET_SHIFT; r <= region.getLastRow() >> BUCKET_SHIFT; r++) {
+                for (int c = region.getFirstColumn() >> BUCKET_SHIFT; c <= region.getLastColumn() >> BUCKET_SHIFT; c++) {
+                    buckets.computeIfAbsent(key(r, c), k -> new ArrayList<>(2)).add(region);
+                }
+            }
+        }
+    }
+
+    /**
+     * 为sheet构建合并单元格索引
+     */
+    public static MergedRegionIndex of(Sheet sheet) {
+        return new MergedRegionIndex(sheet.getMergedRegions());
+    }
+
+    /**
+     * 由已有的合并区域构建索引
+     */
+    public static MergedRegionIndex of(List<CellRangeAddress> regions) {
+        return new MergedRegionIndex(regions);
+    }
+
+    /**
+     * 获取单元格所在的合并区域，不在合并区域中时返回null
+     */
+    public CellRangeAddress getRegion(int row, int column) {
+        if (anchors.isEmpty()) {
+            return null;
+        }
+        List<CellRangeAddress> regions = buckets.get(key(row >> BUCKET_SHIFT, column >> BUCKET_SHIFT));
+        if (regions != null) {
+            for (CellRangeAddress region : regions) {
+                if (region.isInRange(row, column)) {
+                    return region;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 判断单元格是否是合并单元格
+     */
+    public boolean isMerged(int row, int column) {
+        return getRegion(row, column) != null;
+    }
+
+    /**
+     * 判断单元格是否是合并区域的左上角单元格
+     */
+    public boolean isAnchor(int row, int column) {
+        return anchors.containsKey(key(row, column));
+    }
+
+    /**
+     * 获取以该单元格为左上角的合并区域，不是左上角时返回null
+     */
+    public CellRangeAddress getAnchoredRegion(int row, int column) {
+        return anchors.get(key(row, column));
+    }
+
+    /**
+     * 计算合并单元格合并的跨行跨列数，不是合并区域的左上角时返回{1, 1}
+     */
+    public int[] getSpan(int row, int column) {
+        CellRangeAddress region = anchors.get(key(row, column));
+        if (region == null) {
+            return NO_SPAN.clone();
+        }
+        return new int[]{region.getLastRow() - region.getFirstRow() + 1, region.getLastColumn() - region.getFirstColumn() + 1};
+    }
+
+    /**
+     * 合并区域数量
+     */
+    public int size() {
+        return anchors.size();
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,168 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.util.NumberFormatUtil;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 不经过资源字典的内容流写入器，用于在多个线程中生成共用同一资源字典的页面
+ * <p>
+ * 字体按调用方事先在资源字典中登记好的名称引用，写入器不修改资源字典和文档，只向自己的输出流写入字节。
+ * 指令和数字的格式与PDPageContentStream相同，同样的绘制得到同样的内容流。
+ * 字体的编码和子集字形记录在字体上同步，其他状态属于各自的实例，每个实例只在一个线程中使用。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class PageContentWriter implements ContentOperators, Closeable {
+
+    private static final int FRACTION_DIGITS = 4;
+
+    private final OutputStream out;
+    private final Map<PDFont, COSName> fontNames;
+    private final byte[] numberBuffer = new byte[32];
+    private NumberFormat numberFormat;
+
+    /**
+     * @param out       内容流的输出，关闭写入器时一起关闭
+     * @param fontNames 字体在资源字典中的名称
+     */
+    public PageContentWriter(OutputStream out, Map<PDFont, COSName> fontNames) {
+        this.out = out;
+        this.fontNames = fontNames;
+    }
+
+    @Override
+    public void beginText() throws IOException {
+        writeOperator("BT");
+    }
+
+    @Override
+    public void endText() throws IOException {
+        writeOperator("ET");
+    }
+
+    /**
+     * 设置字体和字号，字体必须在构造时传入的名称中
+     */
+    @Override
+    public void setFont(PDFont font, float fontSize) throws IOException {
+        COSName name = fontNames.get(font);
+        if (name == null) {
+            throw new IllegalStateException("font is not registered in the shared resources: " + font.getName());
+        }
+        name.writePDF(out);
+        out.write(' ');
+        writeOperand(fontSize);
+        writeOperator("Tf");
+    }
+
+    @Override
+    public void setRenderingMode(RenderingMode mode) throws IOException {
+        writeOperand(mode.intValue());
+        writeOperator("Tr");
+    }
+
+    @Override
+    public void newLineAtOffset(float tx, float ty) throws IOException {
+        writeOperand(tx);
+        writeOperand(ty);
+        writeOperator("Td");
+    }
+
+    @Override
+    public void showText(PDFont font, String text) throws IOException {
+        byte[] encoded;
+        synchronized (font) {
+            encoded = font.encode(text);
+            if (font.willBeSubset()) {
+                int offset = 0;
+                while (offset < text.length()) {
+                    int codePoint = text.codePointAt(offset);
+                    font.addToSubset(codePoint);
+                    offset += Character.charCount(codePoint);
+                }
+            }
+        }
+        COSWriter.writeString(encoded, out);
+        out.write(' ');
+        writeOperator("Tj");
+    }
+
+    /**
+     * 设置描边颜色，使用DeviceRGB颜色空间
+     */
+    public void setStrokingColor(Color color) throws IOException {
+        COSName.DEVICERGB.writePDF(out);
+        out.write(' ');
+        writeOperator("CS");
+        writeOperand(color.getRed() / 255f);
+        writeOperand(color.getGreen() / 255f);
+        writeOperand(color.getBlue() / 255f);
+        writeOperator("SC");
+    }
+
+    @Override
+    public void moveTo(float x, float y) throws IOException {
+        writeOperand(x);
+        writeOperand(y);
+        writeOperator("m");
+    }
+
+    @Override
+    public void lineTo(float x, float y) throws IOException {
+        writeOperand(x);
+        writeOperand(y);
+        writeOperator("l");
+    }
+
+    @Override
+    public void stroke() throws IOException {
+        writeOperator("S");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeOperand(float value) throws IOException {
+        if (Float.isInfinite(value) || Float.isNaN(value)) {
+            throw new IllegalArgumentException(value + " is not a finite number");
+        }
+        int length = NumberFormatUtil.formatFloatFast(value, FRACTION_DIGITS, numberBuffer);
+        if (length < 0) {
+            // 超出快速格式化范围的数字按NumberFormat输出，与pdfbox相同
+            if (numberFormat == null) {
+                numberFormat = NumberFormat.getNumberInstance(Locale.US);
+                numberFormat.setMaximumFractionDigits(FRACTION_DIGITS);
+                numberFormat.setGroupingUsed(false);
+            }
+            out.write(numberFormat.format(value).getBytes(StandardCharsets.US_ASCII));
+        } else {
+            out.write(numberBuffer, 0, length);
+        }
+        out.write(' ');
+    }
+
+    private void writeOperand(int value) throws IOException {
+        out.write(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+        out.write(' ');
+    }
+
+    private void writeOperator(String operator) throws IOException {
+        out.write(operator.getBytes(StandardCharsets.US_ASCII));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,133 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一页中所有文字的集合
+ * <p>
+ * 绘制单元格时只记录每一行文字的字体、字号、粗细和位置，整页绘制完后在{@link #write(PDPageContentStream)}或{@link #write(PageContentWriter)}中
+ * 按字体、字号、粗细排序，放在同一个文本对象（BT/ET）中输出。字体、字号或渲染模式变化时才输出对应的指令，
+ * 行与行之间用相对位移（Td）定位。为避免相对位移累积误差，坐标按1/16磅取整。
+ * 每页使用一个实例，不能在多个线程中共用。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class PageText {
+
+    private static final float UNITS_PER_POINT = 16f;
+
+    private static final int SEQUENCE_BITS = 24;
+    private static final int MAX_FONTS = 127;
+
+    private final List<PDFont> fonts = new ArrayList<>();
+    /**
+     * 排序键：字体序号7位、字号31位、粗体1位、加入顺序24位
+     */
+    private long[] keys = new long[64];
+    private float[] positions = new float[128];
+    private String[] texts = new String[64];
+    private int size;
+
+    /**
+     * 加入一行文字，(x, y)为基线起点
+     */
+    public void add(PDFont font, float fontSize, boolean bold, float x, float y, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        if (size == texts.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            positions = Arrays.copyOf(positions, size * 4);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+        int fontIndex = fonts.indexOf(font);
+        if (fontIndex < 0) {
+            if (fonts.size() == MAX_FONTS) {
+                throw new IllegalStateException("too many fonts in one page: " + MAX_FONTS);
+            }
+            fonts.add(font);
+            fontIndex = fonts.size() - 1;
+        }
+        keys[size] = (long) fontIndex << 56
+                | (long) (Float.floatToIntBits(Math.abs(fontSize)) & 0x7fffffff) << 25
+                | (bold ? 1L : 0L) << SEQUENCE_BITS
+                | size;
+        positions[2 * size] = round(x);
+        positions[2 * size + 1] = round(y);
+        texts[size] = text;
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 输出所有文字，之后集合清空，可以继续用于下一页
+     */
+    public void write(PDPageContentStream stream) throws IOException {
+        writeTo(ContentOperators.of(stream));
+    }
+
+    /**
+     * 输出所有文字，字体按写入器中登记的名称引用，之后集合清空，可以继续用于下一页
+     */
+    public void write(PageContentWriter writer) throws IOException {
+        writeTo(writer);
+    }
+
+    private void writeTo(ContentOperators stream) throws IOException {
+        if (isEmpty()) {
+            return;
+        }
+        // 相同状态的文字排在一起，状态相同时保持加入顺序
+        Arrays.sort(keys, 0, size);
+
+        PDFont currentFont = null;
+        float currentSize = -1;
+        RenderingMode currentMode = null;
+        float currentX = 0;
+        float currentY = 0;
+
+        stream.beginText();
+        for (int i = 0; i < size; i++) {
+            long key = keys[i];
+            int index = (int) (key & ((1 << SEQUENCE_BITS) - 1));
+            PDFont font = fonts.get((int) (key >>> 56));
+            float fontSize = Float.intBitsToFloat((int) (key >>> 25) & 0x7fffffff);
+            RenderingMode mode = ((key >>> SEQUENCE_BITS) & 1) != 0 ? RenderingMode.STROKE : RenderingMode.FILL;
+
+            if (font != currentFont || fontSize != currentSize) {
+                stream.setFont(font, fontSize);
+                currentFont = font;
+                currentSize = fontSize;
+            }
+            if (mode != currentMode) {
+                stream.setRenderingMode(mode);
+                currentMode = mode;
+            }
+            float x = positions[2 * index];
+            float y = positions[2 * index + 1];
+            stream.newLineAtOffset(x - currentX, y - currentY);
+            currentX = x;
+            currentY = y;
+            stream.showText(font, texts[index]);
+        }
+        stream.endText();
+
+        Arrays.fill(texts, 0, size, null);
+        size = 0;
+    }
+
+    private static float round(float value) {
+        return Math.round(value * UNITS_PER_POINT) / UNITS_PER_POINT;
+    }
+}
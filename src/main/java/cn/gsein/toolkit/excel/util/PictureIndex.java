@@ -0,0 +1,202 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.poi.hssf.usermodel.HSSFClientAnchor;
+import org.apache.poi.hssf.usermodel.HSSFPatriarch;
+import org.apache.poi.hssf.usermodel.HSSFPicture;
+import org.apache.poi.hssf.usermodel.HSSFShape;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
+import org.apache.poi.xssf.usermodel.XSSFDrawing;
+import org.apache.poi.xssf.usermodel.XSSFPicture;
+import org.apache.poi.xssf.usermodel.XSSFShape;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * sheet图片索引，每个sheet只构建一次
+ * <p>
+ * 构建时遍历一次drawing中的图片，只记录锚点和图片数据的引用，图片内容在第一次调用
+ * {@link PicturesInfo#getPictureData()}时才读取。图片按锚点所占区域分到固定大小的网格桶中，
+ * 按单元格或较小的区域查询时只检查相关的桶。查询结果按图片在drawing中的顺序排列，
+ * 与{@link PoiExtend#getAllPictureInfos(Sheet, Integer, Integer, Integer, Integer, boolean)}一致。
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-23
+ */
+public final class PictureIndex {
+
+    /**
+     * 网格桶大小（2的幂，按位移计算）
+     */
+    private static final int BUCKET_SHIFT = 5;
+
+    /**
+     * 按drawing中的顺序排列的图片
+     */
+    private final List<PicturesInfo> pictures;
+
+    /**
+     * 网格桶 -> 与该桶相交的图片序号
+     */
+    private final Map<Long, List<Integer>> buckets;
+
+    private PictureIndex(List<PicturesInfo> pictures) {
+        this.pictures = pictures;
+        this.buckets = new HashMap<>();
+        for (int i = 0; i < pictures.size(); i++) {
+            PicturesInfo picture = pictures.get(i);
+            int firstRow = Math.min(picture.getMinRow(), picture.getMaxRow());
+            int lastRow = Math.max(picture.getMinRow(), picture.getMaxRow());
+            int firstColumn = Math.min(picture.getMinCol(), picture.getMaxCol());
+            int lastColumn = Math.max(picture.getMinCol(), picture.getMaxCol());
+            for (int r = firstRow >> BUCKET_SHIFT; r <= lastRow >> BUCKET_SHIFT; r++) {
+                for (int c = firstColumn >> BUCKET_SHIFT; c <= lastColumn >> BUCKET_SHIFT; c++) {
+                    buckets.computeIfAbsent(key(r, c), k -> new ArrayList<>(2)).add(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * 为sheet构建图片索引，只支持xls和xlsx的sheet
+     */
+    public static PictureIndex of(Sheet sheet) {
+        if (sheet instanceof HSSFSheet) {
+            return new PictureIndex(readXlsPictures((HSSFSheet) sheet));
+        } else if (sheet instanceof XSSFSheet) {
+            return new PictureIndex(readXlsxPictures((XSSFSheet) sheet));
+        }
+        throw new IllegalArgumentException("不支持的sheet类型：" + sheet.getClass().getName());
+    }
+
+    /**
+     * 获取与单元格相交的图片
+     */
+    public List<PicturesInfo> find(int row, int column) {
+        return find(row, row, column, column, false);
+    }
+
+    /**
+     * 获取与区域相交（onlyInternal为false）或完全在区域内（onlyInternal为true）的图片
+     */
+    public List<PicturesInfo> find(int minRow, int maxRow, int minCol, int maxCol, boolean onlyInternal) {
+        if (pictures.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int firstRow = Math.min(minRow, maxRow);
+        int lastRow = Math.max(minRow, maxRow);
+        int firstColumn = Math.min(minCol, maxCol);
+        int lastColumn = Math.max(minCol, maxCol);
+        long bucketCount = ((long) (lastRow >> BUCKET_SHIFT) - (firstRow >> BUCKET_SHIFT) + 1)
+                * ((long) (lastColumn >> BUCKET_SHIFT) - (firstColumn >> BUCKET_SHIFT) + 1);
+        BitSet matched = new BitSet(pictures.size());
+        if (bucketCount > pictures.size()) {
+            // 区域较大时直接逐个比较
+            for (int i = 0; i < pictures.size(); i++) {
+                if (matches(pictures.get(i), firstRow, lastRow, firstColumn, lastColumn, onlyInternal)) {
+                    matched.set(i);
+                }
+            }
+        } else {
+            for (int r = firstRow >> BUCKET_SHIFT; r <= lastRow >> BUCKET_SHIFT; r++) {
+                for (int c = firstColumn >> BUCKET_SHIFT; c <= lastColumn >> BUCKET_SHIFT; c++) {
+                    List<Integer> candidates = buckets.get(key(r, c));
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (int i : candidates) {
+                        if (!matched.get(i) && matches(pictures.get(i), firstRow, lastRow, firstColumn, lastColumn, onlyInternal)) {
+                            matched.set(i);
+                        }
+                    }
+                }
+            }
+        }
+        if (matched.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PicturesInfo> result = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            result.add(pictures.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 按drawing中的顺序获取全部图片
+     */
+    public List<PicturesInfo> getPictures() {
+        return Collections.unmodifiableList(pictures);
+    }
+
+    /**
+     * 图片数量
+     */
+    public int size() {
+        return pictures.size();
+    }
+
+    public boolean isEmpty() {
+        return pictures.isEmpty();
+    }
+
+    private static boolean matches(PicturesInfo picture, int firstRow, int lastRow, int firstColumn, int lastColumn,
+                                   boolean onlyInternal) {
+        int pictureFirstRow = Math.min(picture.getMinRow(), picture.getMaxRow());
+        int pictureLastRow = Math.max(picture.getMinRow(), picture.getMaxRow());
+        int pictureFirstColumn = Math.min(picture.getMinCol(), picture.getMaxCol());
+        int pictureLastColumn = Math.max(picture.getMinCol(), picture.getMaxCol());
+        if (onlyInternal) {
+            return firstRow <= pictureFirstRow && lastRow >= pictureLastRow
+                    && firstColumn <= pictureFirstColumn && lastColumn >= pictureLastColumn;
+        }
+        return firstRow <= pictureLastRow && lastRow >= pictureFirstRow
+                && firstColumn <= pictureLastColumn && lastColumn >= pictureFirstColumn;
+    }
+
+    private static List<PicturesInfo> readXlsPictures(HSSFSheet sheet) {
+        List<PicturesInfo> pictures = new ArrayList<>();
+        HSSFPatriarch patriarch = sheet.getDrawingPatriarch();
+        if (patriarch == null) {
+            return pictures;
+        }
+        for (HSSFShape shape : patriarch.getChildren()) {
+            if (shape instanceof HSSFPicture && shape.getAnchor() instanceof HSSFClientAnchor) {
+                HSSFClientAnchor anchor = (HSSFClientAnchor) shape.getAnchor();
+                pictures.add(new PicturesInfo(anchor, anchor.getRow1(), anchor.getRow2(), anchor.getCol1(), anchor.getCol2(),
+                        ((HSSFPicture) shape).getPictureData()));
+            }
+        }
+        return pictures;
+    }
+
+    private static List<PicturesInfo> readXlsxPictures(XSSFSheet sheet) {
+        List<PicturesInfo> pictures = new ArrayList<>();
+        for (POIXMLDocumentPart documentPart : sheet.getRelations()) {
+            if (!(documentPart instanceof XSSFDrawing)) {
+                continue;
+            }
+            for (XSSFShape shape : ((XSSFDrawing) documentPart).getShapes()) {
+                if (shape instanceof XSSFPicture) {
+                    XSSFPicture picture = (XSSFPicture) shape;
+                    XSSFClientAnchor anchor = picture.getClientAnchor();
+                    pictures.add(new PicturesInfo(anchor, anchor.getRow1(), anchor.getRow2(), anchor.getCol1(), anchor.getCol2(),
+                            picture.getPictureData()));
+                }
+            }
+        }
+        return pictures;
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
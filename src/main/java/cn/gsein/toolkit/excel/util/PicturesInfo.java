@@ -1,6 +1,7 @@
 package cn.gsein.toolkit.excel.util;
 
 import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.PictureData;
 
 /**
  * 图片基本信息
@@ -14,6 +15,10 @@ public class PicturesInfo {
     private String ext;
     private ClientAnchor anchor;
     private byte[] pictureData;
+    /**
+     * 图片数据的来源，图片内容在第一次获取时才读取
+     */
+    private PictureData source;
 
     public PicturesInfo(ClientAnchor anchor, int minRow, int maxRow, int minCol, int maxCol, byte[] pictureData, String ext) {
         this.minRow = minRow;
@@ -25,7 +30,15 @@ public class PicturesInfo {
         this.anchor = anchor;
     }
 
+    public PicturesInfo(ClientAnchor anchor, int minRow, int maxRow, int minCol, int maxCol, PictureData source) {
+        this(anchor, minRow, maxRow, minCol, maxCol, null, source.getMimeType());
+        this.source = source;
+    }
+
     public byte[] getPictureData() {
+        if (pictureData == null && source != null) {
+            pictureData = source.getData();
+        }
         return pictureData;
     }
 
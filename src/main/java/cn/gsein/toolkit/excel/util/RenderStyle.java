@@ -0,0 +1,159 @@
+package cn.gsein.toolkit.excel.util;
+
+import lombok.Getter;
+import org.apache.poi.hssf.usermodel.HSSFPalette;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+
+/**
+ * 单元格样式的解析结果，转换时绘制单元格所需的样式信息
+ * <p>
+ * 每个样式下标只解析一次（见{@link RenderStyles}），解析后不再改变，可以在多个线程中共用
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-22
+ */
+@Getter
+public final class RenderStyle {
+
+    private static final int TOP = 1;
+    private static final int RIGHT = 2;
+    private static final int BOTTOM = 4;
+    private static final int LEFT = 8;
+
+    /**
+     * 样式下标
+     */
+    private final int index;
+    /**
+     * 字体
+     */
+    private final Font font;
+    /**
+     * 字号（磅）
+     */
+    private final float fontSize;
+    /**
+     * 字体高度（1/20磅）
+     */
+    private final short fontHeight;
+    /**
+     * 是否粗体
+     */
+    private final boolean bold;
+    /**
+     * 字体颜色（#rrggbb），没有设置时为null
+     */
+    private final String fontColor;
+
+    private final BorderStyle borderTop;
+    private final BorderStyle borderRight;
+    private final BorderStyle borderBottom;
+    private final BorderStyle borderLeft;
+    /**
+     * 边框，上1 右2 下4 左8
+     */
+    private final int border;
+
+    private final HorizontalAlignment alignment;
+    private final VerticalAlignment verticalAlignment;
+
+    private final FillPatternType fillPattern;
+    /**
+     * 背景颜色（#rrggbb），没有设置时为null
+     */
+    private final String fillColor;
+
+    private final short dataFormat;
+    private final String dataFormatString;
+    /**
+     * 由数据格式编译的格式化器
+     */
+    private final CellValueFormatter formatter;
+
+    RenderStyle(Workbook workbook, CellStyle cellStyle) {
+        this.index = cellStyle.getIndex() & 0xFFFF;
+        this.font = workbook.getFontAt(cellStyle.getFontIndexAsInt());
+        this.fontSize = font.getFontHeightInPoints();
+        this.fontHeight = font.getFontHeight();
+        this.bold = font.getBold();
+
+        this.borderTop = cellStyle.getBorderTop();
+        this.borderRight = cellStyle.getBorderRight();
+        this.borderBottom = cellStyle.getBorderBottom();
+        this.borderLeft = cellStyle.getBorderLeft();
+        int border = 0;
+        if (borderTop.getCode() > 0) {
+            border += TOP;
+        }
+        if (borderBottom.getCode() > 0) {
+            border += BOTTOM;
+        }
+        if (borderLeft.getCode() > 0) {
+            border += LEFT;
+        }
+        if (borderRight.getCode() > 0) {
+            border += RIGHT;
+        }
+        this.border = border;
+
+        this.alignment = cellStyle.getAlignment();
+        this.verticalAlignment = cellStyle.getVerticalAlignment();
+        this.fillPattern = cellStyle.getFillPattern();
+
+        if (cellStyle instanceof XSSFCellStyle) {
+            this.fontColor = toHtmlColor(((XSSFFont) font).getXSSFColor());
+            this.fillColor = toHtmlColor((XSSFColor) cellStyle.getFillForegroundColorColor());
+        } else if (workbook instanceof HSSFWorkbook) {
+            HSSFPalette palette = ((HSSFWorkbook) workbook).getCustomPalette();
+            this.fontColor = toHtmlColor(palette.getColor(font.getColor()));
+            this.fillColor = toHtmlColor(palette.getColor(cellStyle.getFillForegroundColor()));
+        } else {
+            this.fontColor = null;
+            this.fillColor = null;
+        }
+
+        this.dataFormat = cellStyle.getDataFormat();
+        this.dataFormatString = cellStyle.getDataFormatString();
+        this.formatter = CellValueFormatter.of(dataFormat, dataFormatString);
+    }
+
+    /**
+     * 由合并区域四个角的单元格样式计算合并单元格的边框：上边取左上角，下边取右下角，左边取左下角，右边取右上角
+     */
+    public static int getMergedBorder(RenderStyle leftTop, RenderStyle rightTop, RenderStyle leftBottom, RenderStyle rightBottom) {
+        return (leftTop.border & TOP) | (rightBottom.border & BOTTOM) | (leftBottom.border & LEFT) | (rightTop.border & RIGHT);
+    }
+
+    private static String toHtmlColor(XSSFColor color) {
+        if (color == null || "".equals(color.toString()) || color.getARGBHex() == null) {
+            return null;
+        }
+        return "#" + color.getARGBHex().substring(2);
+    }
+
+    private static String toHtmlColor(HSSFColor color) {
+        if (color == null || HSSFColor.HSSFColorPredefined.AUTOMATIC.getIndex() == color.getIndex()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder("#");
+        for (short component : color.getTriplet()) {
+            String hex = Integer.toHexString(component);
+            if (hex.length() < 2) {
+                sb.append('0');
+            }
+            sb.append(hex);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package cn.gsein.toolkit.excel.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * 工作簿中所有单元格样式的解析结果，按样式下标存放
+ * <p>
+ * 创建时一次性解析全部样式（包括读取字体），之后只读，可以在多个线程中共用。
+ * 工作簿中的样式通常只有几百个，而单元格可能有上百万个，绘制时应通过本类获取样式而不是逐个单元格读取
+ *
+ * @author G. Seinfeld
+ * @since 2020-05-22
+ */
+public final class RenderStyles {
+
+    private final RenderStyle[] styles;
+
+    private RenderStyles(RenderStyle[] styles) {
+        this.styles = styles;
+    }
+
+    public static RenderStyles of(Workbook workbook) {
+        RenderStyle[] styles = new RenderStyle[workbook.getNumCellStyles()];
+        for (int i = 0; i < styles.length; i++) {
+            styles[i] = new RenderStyle(workbook, workbook.getCellStyleAt(i));
+        }
+        return new RenderStyles(styles);
+    }
+
+    /**
+     * 获取单元格的样式，单元格为null时返回默认样式
+     */
+    public RenderStyle get(Cell cell) {
+        if (cell == null) {
+            return styles[0];
+        }
+        return get(cell.getCellStyle());
+    }
+
+    /**
+     * 获取行中某一列的单元格的样式，行或单元格为null时返回默认样式
+     */
+    public RenderStyle get(Row row, int column) {
+        return get(row == null ? null : row.getCell(column));
+    }
+
+    /**
+     * 获取样式的解析结果。xlsx最多有64000个样式，下标是无符号的short
+     */
+    public RenderStyle get(CellStyle cellStyle) {
+        if (cellStyle == null) {
+            return styles[0];
+        }
+        return get(cellStyle.getIndex() & 0xFFFF);
+    }
+
+    /**
+     * 按样式下标获取样式，下标越界时返回默认样式
+     */
+    public RenderStyle get(int index) {
+        if (index < 0 || index >= styles.length) {
+            return styles[0];
+        }
+        return styles[index];
+    }
+
+    public int size() {
+        return styles.length;
+    }
+}